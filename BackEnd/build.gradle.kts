@@ -24,6 +24,9 @@ dependencies {
     implementation("org.springframework.boot:spring-boot-starter-data-jpa")
     implementation("org.springframework.boot:spring-boot-starter-thymeleaf")
 
+    // In-process cache (version do Spring Boot quan ly)
+    implementation("com.github.ben-manes.caffeine:caffeine")
+
     // MySQL driver
     runtimeOnly("mysql:mysql-connector-java:8.0.33")
     implementation("org.springframework:spring-test:6.1.5")   
@@ -44,6 +47,7 @@ dependencies {
     // Test
     testImplementation("org.springframework.boot:spring-boot-starter-test")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+    testRuntimeOnly("com.h2database:h2")
 
 
     implementation("com.google.api-client:google-api-client:1.34.1")
@@ -61,4 +65,6 @@ dependencies {
 
 tasks.withType<Test> {
     useJUnitPlatform()
+    // -Dbenchmark=true bat cac test do hieu nang
+    System.getProperty("benchmark")?.let { systemProperty("benchmark", it) }
 }
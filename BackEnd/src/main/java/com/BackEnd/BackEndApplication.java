@@ -2,10 +2,12 @@ package com.BackEnd;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import io.github.cdimascio.dotenv.Dotenv;
 
 @SpringBootApplication(scanBasePackages = "com.BackEnd")
+@EnableScheduling
 public class BackEndApplication {
 
 	public static void main(String[] args) {
@@ -26,11 +26,7 @@ public class CartController {
     public ResponseEntity<CartBasicInfoDTO> getOrCreateActiveCart(
             @RequestParam String userName) {
         try {
-            BasicCartInfoDto basicDto = cartService.getOrCreateActiveCartDTO(userName);
-            CartBasicInfoDTO dto = new CartBasicInfoDTO(
-                    basicDto.getCartId(),
-                    basicDto.getStatus());
-            return ResponseEntity.ok(dto);
+            return ResponseEntity.ok(cartService.getOrCreateActiveCart(userName));
         } catch (RuntimeException ex) {
             log.warn("User '{}' not found when getting/creating cart", userName, ex);
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
@@ -67,6 +63,21 @@ public class CartController {
         }
     }
 
+    // Nhieu thao tac (add/remove/set/increase/decrease/clear) trong 1 request, 1 transaction
+    @PostMapping("/batch")
+    public ResponseEntity<CartBatchResponse> applyBatch(
+            @RequestBody CartBatchRequest request) {
+        try {
+            return ResponseEntity.ok(cartService.applyBatch(request));
+        } catch (IllegalArgumentException ex) {
+            log.warn("Invalid cart batch request: {}", request, ex);
+            return ResponseEntity.badRequest().build();
+        } catch (RuntimeException ex) {
+            log.warn("Failed to apply cart batch to cart {}", request.getCartId(), ex);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
     @DeleteMapping("/remove")
     public ResponseEntity<Void> removeItem(
             @RequestParam Long cartId,
@@ -114,17 +125,28 @@ public class CartController {
     }
 
     @GetMapping("/status")
-    public ResponseEntity<Cart> getCartStatus(
+    public ResponseEntity<CartStatusDTO> getCartStatus(
             @RequestParam Long cartId) {
         try {
-            Cart cart = cartService.getCartStatus(cartId);
-            return ResponseEntity.ok(cart);
+            return ResponseEntity.ok(cartService.getCartStatus(cartId));
         } catch (RuntimeException ex) {
             log.warn("Cart {} not found when getting status", cartId, ex);
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
     }
 
+    // So lan phai cho khoa gio hang: contention cao -> co gio dang bi thao tac don dap
+    @GetMapping("/lock-stats")
+    public ResponseEntity<CartLockStatsDTO> getLockStats() {
+        return ResponseEntity.ok(cartService.getLockStats());
+    }
+
+    // Hit rate cua cache userName -> gio ACTIVE (GET /app/cart)
+    @GetMapping("/cache-stats")
+    public ResponseEntity<CacheStatsDTO> getCacheStats() {
+        return ResponseEntity.ok(cartService.getActiveCartCacheStats());
+    }
+
     @PutMapping("/update")
     public ResponseEntity<CartItemDTO> updateItemQuantity(
             @RequestBody UpdateCartItemRequest request) {
@@ -148,7 +170,7 @@ public class CartController {
     @PostMapping("/activate")
     public ResponseEntity<Void> activateCart(@RequestParam String userName) {
         // Tìm giỏ hàng hiện tại của user và đặt lại trạng thái thành ACTIVE
-        BasicCartInfoDto cart = cartService.getOrCreateActiveCartDTO(userName);
+        CartBasicInfoDTO cart = cartService.getOrCreateActiveCart(userName);
         cartService.changeCartStatus(cart.getCartId(), Cart.CartStatus.ACTIVE);
         return ResponseEntity.ok().build();
     }
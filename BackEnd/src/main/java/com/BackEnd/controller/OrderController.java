@@ -1,8 +1,11 @@
 package com.BackEnd.controller;
 
 import com.BackEnd.dto.CreateOrderResponse;
+import com.BackEnd.dto.CursorPage;
 import com.BackEnd.dto.OrderDTO;
 import com.BackEnd.dto.OrderDetailDTO;
+import com.BackEnd.dto.OrderSearchFilter;
+import com.BackEnd.dto.OrderSummaryDTO;
 import com.BackEnd.model.Order;
 import com.BackEnd.service.OrderService;
 import com.BackEnd.service.PaymentService;
@@ -12,6 +15,10 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
 
 @RestController
 @RequestMapping("/app/order")
@@ -20,29 +27,40 @@ public class OrderController {
     private final OrderService orderService;
     private final PaymentService paymentService;
 
+    // Tra ve future: thread Tomcat duoc tra lai trong luc cho PayOS, response gui khi co QR
     @PostMapping("/create")
-    public ResponseEntity<CreateOrderResponse> createOrder(@RequestBody Map<String, Long> request) {
+    public CompletableFuture<ResponseEntity<CreateOrderResponse>> createOrder(@RequestBody Map<String, Long> request) {
+        Long cartId = request.get("cartId");
+        if (cartId == null) {
+            System.err.println("CartId không tồn tại trong yêu cầu tạo đơn hàng");
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        CompletableFuture<CreateOrderResponse> pending;
         try {
-            Long cartId = request.get("cartId");
-            if (cartId == null) {
-                System.err.println("CartId không tồn tại trong yêu cầu tạo đơn hàng");
-                return ResponseEntity.badRequest().build();
-            }
-
-            // Tạo đơn hàng và nhận response
-            CreateOrderResponse response = orderService.createOrder(cartId);
-            if (response == null || response.getOrderCode() == null) {
-                System.err.println("Không thể tạo đơn hàng cho cartId: " + cartId);
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-            }
-
-            System.out.println("Đơn hàng được tạo thành công - OrderCode: " + response.getOrderCode() +
-                    ", QR Code URL: " + response.getQrCode() + ", Tổng tiền: " + response.getAmount());
-            return ResponseEntity.ok(response);
+            // Lưu đơn hàng, link PayOS tạo bất đồng bộ
+            pending = orderService.createOrder(cartId);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Lỗi khi tạo đơn hàng: " + e.getMessage());
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
         } catch (Exception e) {
             System.err.println("Lỗi khi tạo đơn hàng: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
         }
+        return pending.<ResponseEntity<CreateOrderResponse>>thenApply(response -> {
+            System.out.println("Đơn hàng được tạo thành công - OrderCode: " + response.getOrderCode() +
+                    ", Tổng tiền: " + response.getAmount());
+            return ResponseEntity.ok(response);
+        }).exceptionally(e -> {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            System.err.println("Lỗi khi tạo link thanh toán cho cartId " + cartId + ": " + cause);
+            if (cause instanceof RejectedExecutionException) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+            }
+            if (cause instanceof TimeoutException) {
+                return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).build();
+            }
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        });
     }
 
     @GetMapping("/check-pending")
@@ -77,6 +95,16 @@ public class OrderController {
         return orderService.getOrdersByStatus(status);
     }
 
+    // Admin: /search?status=PAID&userName=..&from=2025-01-01T00:00:00&minAmount=..&cursor=..&size=50
+    @GetMapping("/search")
+    public ResponseEntity<CursorPage<OrderSummaryDTO>> searchOrders(@ModelAttribute OrderSearchFilter filter) {
+        try {
+            return ResponseEntity.ok(orderService.searchOrders(filter));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/get-all-orders")
     public List<OrderDTO> getAllOrder() {
         return orderService.getAllOrders();
@@ -1,16 +1,38 @@
 package com.BackEnd.controller;
 
-import com.BackEnd.repository.CartItemRepository;
-import com.BackEnd.repository.ProductRepository;
+import com.BackEnd.service.ProductExportService;
+import com.BackEnd.service.ProductImportService;
 import com.BackEnd.service.ProductService;
+import com.BackEnd.dto.CacheStatsDTO;
+import com.BackEnd.dto.CatalogVersion;
+import com.BackEnd.dto.CursorPage;
+import com.BackEnd.dto.FacetSearchResponse;
+import com.BackEnd.dto.ProductCardDTO;
+import com.BackEnd.dto.ProductDetailDTO;
+import com.BackEnd.dto.ProductImportStatusDTO;
 import com.BackEnd.dto.ProductRequest;
+import com.BackEnd.dto.ProductSearchHit;
+import com.BackEnd.dto.SuggestionDTO;
+import com.BackEnd.dto.ProductSnapshot;
 import com.BackEnd.model.Product;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.BackEnd.search.ProductFacetIndex;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.zip.GZIPOutputStream;
+
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -19,12 +41,14 @@ import java.util.Optional;
 public class ProductController {
 
     private final ProductService productService;
-    private final ProductRepository productRepo;
+    private final ProductExportService productExportService;
+    private final ProductImportService productImportService;
 
-    public ProductController(ProductService productService,
-            ProductRepository productRepo) {
+    public ProductController(ProductService productService, ProductExportService productExportService,
+            ProductImportService productImportService) {
         this.productService = productService;
-        this.productRepo = productRepo;
+        this.productExportService = productExportService;
+        this.productImportService = productImportService;
 
     }
 
@@ -45,15 +69,46 @@ public class ProductController {
         }
     }
 
+    // Import hang loat: body la file CSV (co header) hoac NDJSON, xu ly nen,
+    // tra ve jobId de theo doi tien do qua /import/{jobId}
+    @PostMapping("/import")
+    public ResponseEntity<ProductImportStatusDTO> importProducts(
+            @RequestParam(defaultValue = ProductImportService.FORMAT_CSV) String format,
+            HttpServletRequest request) {
+        try {
+            ProductImportStatusDTO job = productImportService.startImport(format.toLowerCase(),
+                    request.getInputStream());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).build();
+        }
+    }
+
+    @GetMapping("/import/{jobId}")
+    public ResponseEntity<ProductImportStatusDTO> getImportStatus(@PathVariable String jobId) {
+        return productImportService.getStatus(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
     @GetMapping("/imageUrls")
-    public ResponseEntity<List<String>> getImageUrls(@RequestParam("productId") Long productId) {
+    public ResponseEntity<List<String>> getImageUrls(@RequestParam("productId") Long productId,
+            WebRequest webRequest) {
         try {
-            List<String> imageUrls = productService.getImageUrls(productId);
-            if (imageUrls != null && !imageUrls.isEmpty()) {
-                return ResponseEntity.ok(imageUrls);
-            } else {
+            // version, updatedAt va list anh cung tu 1 ban chup, nhu /get/{id}
+            Optional<ProductSnapshot> product = productService.getProductSnapshot(productId);
+            if (product.isEmpty() || product.get().images().isEmpty()) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
             }
+            String etag = productETag("img-" + productId, product.get().version());
+            long lastModified = toEpochMillis(product.get().updatedAt());
+            if (webRequest.checkNotModified(etag, lastModified)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+            return ResponseEntity.ok().eTag(etag).body(product.get().images());
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -70,23 +125,133 @@ public class ProductController {
         }
     }
 
+    // Anh dai dien cho ca trang product grid trong 1 request: ?productIds=1,2,3
+    @GetMapping("/imageUrl/batch")
+    public ResponseEntity<Map<Long, String>> getImageUrlBatch(@RequestParam("productIds") List<Long> productIds) {
+        if (productIds.size() > ProductService.MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(productService.getPrimaryImageUrls(productIds));
+    }
+
     @GetMapping("/all")
-    public ResponseEntity<List<Product>> getAllProducts() {
+    public ResponseEntity<List<Product>> getAllProducts(WebRequest webRequest) {
         try {
+            CatalogVersion catalog = productService.getCatalogVersion();
+            String etag = "\"catalog-" + catalog.getCount() + "-" + catalog.getMaxProductId() + "-"
+                    + catalog.getVersionSum() + "\"";
+            long lastModified = toEpochMillis(catalog.getLastUpdatedAt());
+            if (webRequest.checkNotModified(etag, lastModified)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
             List<Product> products = productService.getAllProducts();
-            return ResponseEntity.ok(products);
+            return ResponseEntity.ok().eTag(etag).body(products);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).build();
+        }
+    }
+
+    // Danh sach san pham theo cursor (keyset), thay cho /all khi catalog lon
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<ProductCardDTO>> getProductPage(
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(productService.getProductPage(sort, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(500).build();
         }
     }
 
+    @GetMapping("/search")
+    public ResponseEntity<List<ProductSearchHit>> searchProducts(
+            @RequestParam("q") String query,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(productService.searchProducts(query, limit));
+    }
+
+    // Goi y cho o tim kiem khi dang go (theo tien to ten san pham / brand)
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionDTO>> suggest(
+            @RequestParam("q") String prefix,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(productService.suggest(prefix, limit));
+    }
+
+    // Loc theo brand/category/size/material (co the lap lai tham so) + khoang gia,
+    // tra ve trang ket qua kem so dem cua tung gia tri facet
+    @GetMapping("/filter")
+    public ResponseEntity<FacetSearchResponse> filterProducts(
+            @RequestParam(required = false) List<String> brand,
+            @RequestParam(required = false) List<String> category,
+            @RequestParam(required = false) List<String> size,
+            @RequestParam(required = false) List<String> material,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) Integer offset,
+            @RequestParam(required = false) Integer limit) {
+        Map<String, List<String>> selected = new HashMap<>();
+        selected.put(ProductFacetIndex.BRAND, brand);
+        selected.put(ProductFacetIndex.CATEGORY, category);
+        selected.put(ProductFacetIndex.SIZE, size);
+        selected.put(ProductFacetIndex.MATERIAL, material);
+        return ResponseEntity.ok(productService.filterProducts(selected, minPrice, maxPrice, offset, limit));
+    }
+
+    // Export catalog dang NDJSON, nen gzip neu client gui Accept-Encoding: gzip
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportCatalog(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream gzipOut = new GZIPOutputStream(out, 64 * 1024);
+                productExportService.exportNdjson(gzipOut);
+                gzipOut.finish();
+            } else {
+                productExportService.exportNdjson(out);
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
     @GetMapping("/get/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable Long id) {
-        Optional<Product> product = productService.getProductById(id);
-        return product.map(p -> ResponseEntity.ok(p)) // or .map(Response::ok) _method reference:lambda expression rut
-                                                      // gon
-                .orElseGet(() -> ResponseEntity.notFound().build());
+    public ResponseEntity<ProductDetailDTO> getProductById(@PathVariable Long id, WebRequest webRequest) {
+        // ETag va kiem tra 304 cung lay tu 1 ban (co the tu cache), khong tron voi version trong DB
+        Optional<ProductDetailDTO> product = productService.getProductDetail(id);
+        if (product.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        String etag = productETag("p-" + id, product.get().getVersion());
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(product.get());
+    }
+
+    private String productETag(String key, Long version) {
+        return "\"" + key + "-v" + version + "\"";
+    }
+
+    private long toEpochMillis(LocalDateTime time) {
+        return time == null ? -1 : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    @GetMapping("/cache-stats")
+    public ResponseEntity<List<CacheStatsDTO>> getCacheStats() {
+        return ResponseEntity.ok(productService.getCacheStats());
     }
 
     @PutMapping("/update/{id}")
@@ -103,6 +268,15 @@ public class ProductController {
         }
     }
 
+    // Tra ve so san pham dang cho tinh lai gio hang
+    @PostMapping("/reprice-carts")
+    public ResponseEntity<Integer> repriceCarts(@RequestBody List<Long> productIds) {
+        if (productIds == null || productIds.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.accepted().body(productService.repriceCarts(productIds));
+    }
+
     @DeleteMapping("/delete/{id}")
     public ResponseEntity<String> deleteProduct(@PathVariable Long id) {
 
@@ -0,0 +1,46 @@
+package com.BackEnd.controller;
+
+import com.BackEnd.dto.CursorPage;
+import com.BackEnd.dto.ReviewDTO;
+import com.BackEnd.dto.ReviewRequest;
+import com.BackEnd.service.ReviewService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@CrossOrigin(origins = "http://localhost:5173", allowCredentials = "true")
+@RestController
+@RequestMapping("/app/review")
+@RequiredArgsConstructor
+@Slf4j
+public class ReviewController {
+
+    private final ReviewService reviewService;
+
+    @PostMapping("/add")
+    public ResponseEntity<ReviewDTO> addReview(@RequestBody ReviewRequest request) {
+        try {
+            return ResponseEntity.ok(reviewService.submitReview(request));
+        } catch (IllegalArgumentException ex) {
+            log.warn("Invalid review request: {}", request, ex);
+            return ResponseEntity.badRequest().build();
+        } catch (RuntimeException ex) {
+            log.warn("Failed to add review for product {}", request.getProductId(), ex);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
+    @GetMapping("/product/{productId}")
+    public ResponseEntity<CursorPage<ReviewDTO>> getReviews(
+            @PathVariable Long productId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(reviewService.getReviews(productId, cursor, size));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
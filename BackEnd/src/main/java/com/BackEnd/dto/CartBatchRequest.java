@@ -0,0 +1,16 @@
+package com.BackEnd.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartBatchRequest {
+    private Long cartId;
+    // ap dung dung thu tu gui len
+    private List<CartOperation> operations;
+}
@@ -4,11 +4,14 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class BasicCartInfoDto {
+public class CartBatchResponse {
     private Long cartId;
-    private String status;
+    private List<CartItemDTO> items;
     private Double totalPrice;
-}
\ No newline at end of file
+    private int itemCount;
+}
@@ -0,0 +1,21 @@
+package com.BackEnd.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartLockStatsDTO {
+    private int stripes;
+    private long acquisitions;
+    // so lan phai cho vi stripe dang bi giu
+    private long contended;
+    private double contentionRate;
+    private double avgWaitMillis;
+    private double maxWaitMillis;
+    // tai thoi diem goi
+    private int lockedStripes;
+    private int queuedThreads;
+}
@@ -0,0 +1,25 @@
+package com.BackEnd.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartOperation {
+    public enum Type {
+        ADD,
+        REMOVE,
+        SET,
+        INCREASE,
+        DECREASE,
+        CLEAR
+    }
+
+    private Type type;
+    // khong can voi CLEAR
+    private Long productId;
+    // ADD/SET: bat buoc; INCREASE/DECREASE: mac dinh 1
+    private Integer quantity;
+}
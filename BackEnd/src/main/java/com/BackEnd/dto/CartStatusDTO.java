@@ -0,0 +1,22 @@
+package com.BackEnd.dto;
+
+import com.BackEnd.model.Cart;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Trang thai gio cho UI poll: chi cac cot cua bang cart, khong kem user/item/order
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartStatusDTO {
+    private Long cartId;
+    private String status;
+    private Double totalPrice;
+    private int itemCount;
+
+    // dung trong JPQL "SELECT new ..."
+    public CartStatusDTO(Long cartId, Cart.CartStatus status, Double totalPrice, int itemCount) {
+        this(cartId, status.name(), totalPrice, itemCount);
+    }
+}
@@ -0,0 +1,17 @@
+package com.BackEnd.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogVersion {
+    private Long count;
+    private Long maxProductId;
+    private Long versionSum;
+    private LocalDateTime lastUpdatedAt;
+}
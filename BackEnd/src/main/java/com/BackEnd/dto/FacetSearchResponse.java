@@ -0,0 +1,18 @@
+package com.BackEnd.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetSearchResponse {
+    private int total;
+    private List<ProductCardDTO> items;
+    // facet -> (gia tri -> so san pham)
+    private Map<String, Map<String, Integer>> facets;
+}
@@ -0,0 +1,27 @@
+package com.BackEnd.dto;
+
+import com.BackEnd.model.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+// Query param cua GET /app/order/search, field null = khong loc
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSearchFilter {
+    private Order.OrderStatus status;
+    private String userName;
+    // [from, to)
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime from;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime to;
+    private Double minAmount;
+    private Double maxAmount;
+    private String cursor;
+    private Integer size;
+}
@@ -0,0 +1,23 @@
+package com.BackEnd.dto;
+
+import com.BackEnd.model.Order;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// 1 dong trong danh sach don hang admin: chi cot cua orders + userName, khong kem chi tiet
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummaryDTO {
+    private Long orderId;
+    private Long orderCode;
+    private String userName;
+    @JsonFormat(pattern = "HH:mm:ss_dd/MM/yyyy")
+    private LocalDateTime createTime;
+    private Double totalPrice;
+    private Order.OrderStatus status;
+}
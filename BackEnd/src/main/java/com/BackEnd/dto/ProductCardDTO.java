@@ -0,0 +1,40 @@
+package com.BackEnd.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductCardDTO {
+    private Long productId;
+    private String name;
+    private String brand;
+    private String category;
+    private String size;
+    private String material;
+    private Double price;
+    private String imageUrl;
+    private Integer ratingCount;
+    private Double ratingAverage;
+
+    public ProductCardDTO(Long productId, String name, String brand, String category,
+            String size, String material, Double price) {
+        this.productId = productId;
+        this.name = name;
+        this.brand = brand;
+        this.category = category;
+        this.size = size;
+        this.material = material;
+        this.price = price;
+    }
+
+    // Dung cho constructor expression trong ProductRepository, imageUrl duoc gan sau
+    public ProductCardDTO(Long productId, String name, String brand, String category,
+            String size, String material, Double price, Integer ratingCount, Long ratingSum) {
+        this(productId, name, brand, category, size, material, price);
+        this.ratingCount = ratingCount;
+        this.ratingAverage = ratingCount == null || ratingCount == 0 ? 0.0 : (double) ratingSum / ratingCount;
+    }
+}
@@ -0,0 +1,29 @@
+package com.BackEnd.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductDetailDTO {
+    private Long productId;
+    private String name;
+    private String brand;
+    private String category;
+    private Double price;
+    private Integer quantity;
+    private String description;
+    private Integer yearOfManufacture;
+    private String size;
+    private String material;
+    private List<String> images;
+    private long version;
+    private int ratingCount;
+    private double ratingAverage;
+    // so review theo 1..5 sao
+    private List<Integer> ratingDistribution;
+}
@@ -0,0 +1,28 @@
+package com.BackEnd.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductExportDTO {
+    private Long productId;
+    private String name;
+    private String brand;
+    private String category;
+    private Double price;
+    private Integer quantity;
+    private String description;
+    private Integer yearOfManufacture;
+    private String size;
+    private String material;
+    private String imageUrl;
+
+    public static ProductExportDTO from(ProductExportView view) {
+        return new ProductExportDTO(view.getProductId(), view.getName(), view.getBrand(), view.getCategory(),
+                view.getPrice(), view.getQuantity(), view.getDescription(), view.getYearOfManufacture(),
+                view.getSize(), view.getMaterial(), view.getImageUrl());
+    }
+}
@@ -0,0 +1,26 @@
+package com.BackEnd.dto;
+
+// Projection cho native query export catalog (ProductRepository.streamCatalogForExport)
+public interface ProductExportView {
+    Long getProductId();
+
+    String getName();
+
+    String getBrand();
+
+    String getCategory();
+
+    Double getPrice();
+
+    Integer getQuantity();
+
+    String getDescription();
+
+    Integer getYearOfManufacture();
+
+    String getSize();
+
+    String getMaterial();
+
+    String getImageUrl();
+}
@@ -0,0 +1,26 @@
+package com.BackEnd.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ProductImportRow {
+    private String name;
+    private String brand;
+    private String category;
+    private Double price;
+    private Integer quantity;
+    private String description;
+    private Integer yearOfManufacture;
+    private String size;
+    private String material;
+    private List<String> imageUrls = new ArrayList<>();
+}
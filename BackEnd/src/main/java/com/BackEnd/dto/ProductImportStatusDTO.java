@@ -0,0 +1,22 @@
+package com.BackEnd.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportStatusDTO {
+    private String jobId;
+    private String status;
+    private long processedRows;
+    private long importedRows;
+    private long failedRows;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private List<ProductImportError> errors;
+}
@@ -0,0 +1,17 @@
+package com.BackEnd.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSearchHit {
+    private Long productId;
+    private String name;
+    private String brand;
+    private String category;
+    private Double price;
+    private double score;
+}
@@ -0,0 +1,56 @@
+package com.BackEnd.dto;
+
+import com.BackEnd.model.Product;
+import com.BackEnd.model.RatingSummary;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * Ban chup bat bien cua Product de luu trong ProductCache: moi caller dung chung 1 instance
+ * nen khong duoc la entity (managed, co setter). images / ratingDistribution la list bat bien.
+ */
+public record ProductSnapshot(
+        Long productId,
+        String name,
+        String brand,
+        String category,
+        Double price,
+        Integer quantity,
+        String description,
+        Integer yearOfManufacture,
+        String size,
+        String material,
+        List<String> images,
+        long version,
+        LocalDateTime updatedAt,
+        int ratingCount,
+        double ratingAverage,
+        // so review theo 1..5 sao
+        List<Integer> ratingDistribution) {
+
+    public static ProductSnapshot from(Product product) {
+        RatingSummary rating = product.getRating() == null ? new RatingSummary() : product.getRating();
+        return new ProductSnapshot(
+                product.getProductId(),
+                product.getName(),
+                product.getBrand(),
+                product.getCategory(),
+                product.getPrice(),
+                product.getQuantity(),
+                product.getDescription(),
+                product.getYearOfManufacture(),
+                product.getSize(),
+                product.getMaterial(),
+                product.getImages() == null ? List.of()
+                        : Collections.unmodifiableList(new ArrayList<>(product.getImages())),
+                product.getVersion(),
+                product.getUpdatedAt(),
+                rating.getCount(),
+                rating.getAverage(),
+                List.of(rating.getOneStar(), rating.getTwoStar(), rating.getThreeStar(), rating.getFourStar(),
+                        rating.getFiveStar()));
+    }
+}
@@ -0,0 +1,15 @@
+package com.BackEnd.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewRequest {
+    private Long productId;
+    private String userName;
+    private int rating;
+    private String comment;
+}
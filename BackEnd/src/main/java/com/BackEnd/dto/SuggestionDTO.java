@@ -0,0 +1,16 @@
+package com.BackEnd.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestionDTO {
+    private String text;
+    // "product" hoac "brand"
+    private String type;
+    // null voi goi y brand
+    private Long productId;
+}
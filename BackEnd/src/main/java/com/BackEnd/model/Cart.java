@@ -5,14 +5,19 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
 @Table(name = "cart")
+// totalPrice/itemCount duoc cong tru truc tiep bang SQL: khi save entity (vd doi status)
+// chi ghi cot da thay doi, khong de gia tri cu len tong moi
+@DynamicUpdate
 @Getter
 @Setter
 @AllArgsConstructor
@@ -31,6 +36,14 @@ public class Cart {
     @Column(nullable = false)
     private Double totalPrice = 0.0;
 
+    // tong so luong san pham trong gio (sum quantity)
+    @Column(name = "item_count", columnDefinition = "INT DEFAULT 0", nullable = false)
+    private int itemCount;
+
+    // lan thay doi gan nhat (entity hoac cac cau UPDATE cong tru tong), dung de don gio bo quen
+    @Column(name = "updated_at", columnDefinition = "DATETIME DEFAULT CURRENT_TIMESTAMP")
+    private LocalDateTime updatedAt;
+
     @ManyToOne()
     @JoinColumn(name = "user_id", referencedColumnName = "user_id")
     @OnDelete(action = OnDeleteAction.CASCADE) // automatically delete cart if user is deleted
@@ -62,4 +75,10 @@ public class Cart {
         this.status = CartStatus.ACTIVE;
     }
 
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
 }
@@ -6,7 +6,9 @@ import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
-@Table(name = "cart_item")
+// moi san pham chi co 1 dong trong 1 cart: cho phep upsert (ON DUPLICATE KEY UPDATE)
+@Table(name = "cart_item", uniqueConstraints = @UniqueConstraint(
+        name = "uk_cart_item_cart_product", columnNames = { "cart_id", "product_id" }))
 @Setter
 @Getter
 @AllArgsConstructor
@@ -10,12 +10,23 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+// InnoDB tu noi order_id vao cuoi moi index phu; ghi ro de thay thu tu keyset
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_status_id", columnList = "status, order_id"),
+        @Index(name = "idx_orders_user_id", columnList = "user_id, order_id"),
+        @Index(name = "idx_orders_created_id", columnList = "created_at, order_id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @EntityListeners(AuditingEntityListener.class)
+// Du cho DTOConverter.toOrderDTO trong 1 cau join (images cua product nap theo @BatchSize)
+@NamedEntityGraph(name = "Order.withDetails", attributeNodes = {
+        @NamedAttributeNode("user"),
+        @NamedAttributeNode("payment"),
+        @NamedAttributeNode(value = "orderDetails", subgraph = "details")
+}, subgraphs = @NamedSubgraph(name = "details", attributeNodes = @NamedAttributeNode("product")))
 public class Order {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -36,7 +47,8 @@ public class Order {
     @Column(name = "total_amount", nullable = false)
     private Double totalPrice;
 
-    @ManyToOne
+    // khong dung khi hien thi don hang; truoc day EAGER keo ca cart -> cart_item -> product
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "cart_id")
     private Cart cart;
 
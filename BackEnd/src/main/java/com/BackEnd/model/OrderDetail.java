@@ -2,12 +2,14 @@ package com.BackEnd.model;
 
 import jakarta.persistence.*;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
 @Table(name = "order_detail")
 @Getter
 @Setter
+@NoArgsConstructor // JPA can constructor rong de nap entity
 public class OrderDetail {
         @Id
         @Column(name = "order_detail_id")
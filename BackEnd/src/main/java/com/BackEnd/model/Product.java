@@ -1,14 +1,20 @@
 package com.BackEnd.model;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 import lombok.Getter;
 import lombok.Setter;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 @Entity
-@Table(name = "product")
+@Table(name = "product", indexes = {
+        @Index(name = "idx_product_price_id", columnList = "price, product_id"),
+        @Index(name = "idx_product_name_id", columnList = "name, product_id")
+})
 @Getter
 @Setter
 public class Product {
@@ -54,12 +60,36 @@ public class Product {
     private String size;
     private String material;
 
+    // load images cua nhieu product trong 1 cau IN thay vi tung product
+    @BatchSize(size = 50)
     @ElementCollection(fetch = FetchType.EAGER)
     @CollectionTable(name = "product_images", joinColumns = @JoinColumn(name = "product_id"))
     @Column(name = "image_url")
     private List<String> images = new ArrayList<>();
 
+    /*
+     * Tang moi lan update (optimistic locking cua Hibernate), dung lam ETag.
+     * Kieu primitive de Spring Data van xac dinh entity moi theo productId.
+     */
+    @Version
+    @Column(columnDefinition = "BIGINT DEFAULT 0", nullable = false)
+    private long version;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // chi cap nhat qua ReviewService, khong nhan tu request body
+    @Embedded
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private RatingSummary rating = new RatingSummary();
+
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL)
     @JsonIgnore // Bỏ qua serialize trường này
     private List<Review> reviews = new ArrayList<>();
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        this.updatedAt = LocalDateTime.now();
+    }
 }
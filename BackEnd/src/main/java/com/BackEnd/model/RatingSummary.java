@@ -0,0 +1,43 @@
+package com.BackEnd.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/*
+ * Tong hop danh gia luu san tren bang product, cap nhat tang dan moi khi co
+ * review moi (ProductRepository.addRating) thay vi AVG/COUNT moi lan xem.
+ */
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+public class RatingSummary {
+
+    @Column(name = "rating_count", columnDefinition = "INT DEFAULT 0", nullable = false)
+    private int count;
+
+    @Column(name = "rating_sum", columnDefinition = "BIGINT DEFAULT 0", nullable = false)
+    private long sum;
+
+    @Column(name = "rating_1_count", columnDefinition = "INT DEFAULT 0", nullable = false)
+    private int oneStar;
+
+    @Column(name = "rating_2_count", columnDefinition = "INT DEFAULT 0", nullable = false)
+    private int twoStar;
+
+    @Column(name = "rating_3_count", columnDefinition = "INT DEFAULT 0", nullable = false)
+    private int threeStar;
+
+    @Column(name = "rating_4_count", columnDefinition = "INT DEFAULT 0", nullable = false)
+    private int fourStar;
+
+    @Column(name = "rating_5_count", columnDefinition = "INT DEFAULT 0", nullable = false)
+    private int fiveStar;
+
+    public double getAverage() {
+        return count == 0 ? 0.0 : (double) sum / count;
+    }
+}
@@ -6,7 +6,9 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "review")
+@Table(name = "review", indexes = {
+        @Index(name = "idx_review_product_id", columnList = "product_id, review_id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
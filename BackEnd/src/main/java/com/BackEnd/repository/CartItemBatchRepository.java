@@ -0,0 +1,44 @@
+package com.BackEnd.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Ghi trang thai gio hang tu CartSessionStore xuong DB bang JDBC batch:
+ * quantity la gia tri tuyet doi (khong cong don) nen ghi lai nhieu lan van dung.
+ * Phai goi trong transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CartItemBatchRepository {
+
+    private static final String UPSERT_LINE = "INSERT INTO cart_item (cart_id, product_id, quantity) VALUES (?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE quantity = VALUES(quantity)";
+    private static final String DELETE_LINE = "DELETE FROM cart_item WHERE cart_id = ? AND product_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // moi phan tu: {cartId, productId, quantity}
+    public void upsertLines(List<long[]> lines) {
+        if (lines.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(lines.size());
+        lines.forEach(l -> args.add(new Object[] { l[0], l[1], (int) l[2] }));
+        jdbcTemplate.batchUpdate(UPSERT_LINE, args);
+    }
+
+    // moi phan tu: {cartId, productId}
+    public void deleteLines(List<long[]> lines) {
+        if (lines.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(lines.size());
+        lines.forEach(l -> args.add(new Object[] { l[0], l[1] }));
+        jdbcTemplate.batchUpdate(DELETE_LINE, args);
+    }
+}
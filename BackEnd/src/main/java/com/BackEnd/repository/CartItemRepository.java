@@ -1,5 +1,7 @@
 package com.BackEnd.repository;
 
+import com.BackEnd.dto.BasicCartItemDTO;
+import com.BackEnd.dto.CartItemDTO;
 import com.BackEnd.model.CartItem;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
@@ -7,6 +9,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -16,6 +20,58 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     @Query("DELETE FROM CartItem ci WHERE ci.product.productId = :productId")
     void deleteByProductId(@Param("productId") Long productId);
 
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.cart.cartId = :cartId AND ci.product.productId = :productId")
+    int deleteByCartIdAndProductId(@Param("cartId") Long cartId, @Param("productId") Long productId);
+
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.cart.cartId = :cartId")
+    int deleteByCartId(@Param("cartId") Long cartId);
+
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.cart.cartId IN :cartIds")
+    int deleteByCartIds(@Param("cartIds") Collection<Long> cartIds);
+
     @Query("SELECT ci FROM CartItem ci WHERE ci.cart.cartId = :cartId AND ci.product.productId = :productId")
     Optional<CartItem> findByCartIdAndProductId(@Param("cartId") Long cartId, @Param("productId") Long productId);
+
+    // 1 cau SQL (cart_item JOIN product), khong load Cart/Product entity va images
+    @Query("SELECT new com.BackEnd.dto.CartItemDTO(ci.cartItemId, p.productId, p.name, p.price, ci.quantity) " +
+            "FROM CartItem ci JOIN ci.product p " +
+            "WHERE ci.cart.cartId = :cartId ORDER BY ci.cartItemId")
+    List<CartItemDTO> findItemDTOsByCartId(@Param("cartId") Long cartId);
+
+    @Query("SELECT new com.BackEnd.dto.CartItemDTO(ci.cartItemId, p.productId, p.name, p.price, ci.quantity) " +
+            "FROM CartItem ci JOIN ci.product p " +
+            "WHERE ci.cart.cartId = :cartId AND p.productId = :productId")
+    Optional<CartItemDTO> findItemDTO(@Param("cartId") Long cartId, @Param("productId") Long productId);
+
+    @Query("SELECT new com.BackEnd.dto.BasicCartItemDTO(ci.product.productId, ci.quantity) " +
+            "FROM CartItem ci WHERE ci.cartItemId = :cartItemId")
+    Optional<BasicCartItemDTO> findBasicDTOById(@Param("cartItemId") Long cartItemId);
+
+    @Query("SELECT ci.cart.cartId FROM CartItem ci WHERE ci.cartItemId = :cartItemId")
+    Optional<Long> findCartIdByCartItemId(@Param("cartItemId") Long cartItemId);
+
+    /*
+     * Cong/tru nguyen tu tren DB, khong doc truoc: hai request dong thoi deu duoc
+     * cong. Tra ve 0 neu khong co dong hoac ket qua < 1 (quantity giu nguyen).
+     */
+    @Modifying
+    @Query("UPDATE CartItem ci SET ci.quantity = ci.quantity + :delta " +
+            "WHERE ci.cartItemId = :cartItemId AND ci.quantity + :delta >= 1")
+    int adjustQuantity(@Param("cartItemId") Long cartItemId, @Param("delta") int delta);
+
+    @Modifying
+    @Query("UPDATE CartItem ci SET ci.quantity = :quantity " +
+            "WHERE ci.cart.cartId = :cartId AND ci.product.productId = :productId")
+    int setQuantity(@Param("cartId") Long cartId, @Param("productId") Long productId,
+            @Param("quantity") int quantity);
+
+    // Them moi hoac cong don trong 1 cau, dua tren unique (cart_id, product_id)
+    @Modifying
+    @Query(value = "INSERT INTO cart_item (cart_id, product_id, quantity) VALUES (:cartId, :productId, :quantity) " +
+            "ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity)", nativeQuery = true)
+    int upsertQuantity(@Param("cartId") Long cartId, @Param("productId") Long productId,
+            @Param("quantity") int quantity);
 }
\ No newline at end of file
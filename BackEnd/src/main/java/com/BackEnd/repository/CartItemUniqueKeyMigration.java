@@ -0,0 +1,102 @@
+package com.BackEnd.repository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Dam bao unique key (cart_id, product_id) tren cart_item ton tai truoc khi nhan request.
+ * ddl-auto=update khong tao duoc key khi bang da co dong trung (code add-to-cart cu tao ra):
+ * Hibernate chi log loi, upsert ON DUPLICATE KEY UPDATE se chen tiep dong trung.
+ * Key thieu thi gop dong trung (cong quantity vao dong id nho nhat, xoa cac dong con lai)
+ * roi ADD CONSTRAINT; van thieu thi dung startup. Tong cua cart khong doi khi gop.
+ */
+@Component
+@Slf4j
+public class CartItemUniqueKeyMigration {
+
+    static final String KEY_NAME = "uk_cart_item_cart_product";
+    private static final Set<String> KEY_COLUMNS = Set.of("cart_id", "product_id");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // EntityManagerFactory: chay sau khi Hibernate da tao / cap nhat schema
+    public CartItemUniqueKeyMigration(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+            EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        if (hasUniqueKey()) {
+            return;
+        }
+        int merged = transactionTemplate.execute(status -> mergeDuplicates());
+        log.warn("cart_item had no unique (cart_id, product_id) key: merged {} duplicate groups, adding {}",
+                merged, KEY_NAME);
+        jdbcTemplate.execute("ALTER TABLE cart_item ADD CONSTRAINT " + KEY_NAME + " UNIQUE (cart_id, product_id)");
+        if (!hasUniqueKey()) {
+            throw new IllegalStateException("cart_item is missing unique key " + KEY_NAME
+                    + " on (cart_id, product_id); cart upserts would insert duplicate rows");
+        }
+    }
+
+    private int mergeDuplicates() {
+        // {cart_id, product_id, id giu lai, tong quantity}
+        List<Object[]> groups = jdbcTemplate.query(
+                "SELECT cart_id, product_id, MIN(cart_item_id), SUM(quantity) FROM cart_item " +
+                        "GROUP BY cart_id, product_id HAVING COUNT(*) > 1",
+                (rs, i) -> new Object[] { rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getLong(4) });
+        if (groups.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> keep = new ArrayList<>(groups.size());
+        List<Object[]> drop = new ArrayList<>(groups.size());
+        for (Object[] g : groups) {
+            keep.add(new Object[] { g[3], g[2] });
+            drop.add(new Object[] { g[0], g[1], g[2] });
+        }
+        jdbcTemplate.batchUpdate("UPDATE cart_item SET quantity = ? WHERE cart_item_id = ?", keep);
+        jdbcTemplate.batchUpdate("DELETE FROM cart_item WHERE cart_id = ? AND product_id = ? AND cart_item_id <> ?",
+                drop);
+        return groups.size();
+    }
+
+    // Theo cot chu khong theo ten: moi DB dat ten index cua constraint khac nhau
+    boolean hasUniqueKey() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) con -> {
+            DatabaseMetaData meta = con.getMetaData();
+            for (String table : new String[] { "cart_item", "CART_ITEM" }) {
+                Map<String, Set<String>> columnsByIndex = new HashMap<>();
+                try (ResultSet rs = meta.getIndexInfo(con.getCatalog(), null, table, true, false)) {
+                    while (rs.next()) {
+                        String index = rs.getString("INDEX_NAME");
+                        String column = rs.getString("COLUMN_NAME");
+                        if (index != null && column != null) {
+                            columnsByIndex.computeIfAbsent(index, k -> new HashSet<>()).add(column.toLowerCase());
+                        }
+                    }
+                }
+                if (columnsByIndex.containsValue(KEY_COLUMNS)) {
+                    return true;
+                }
+            }
+            return false;
+        }));
+    }
+}
@@ -1,12 +1,17 @@
 package com.BackEnd.repository;
 
+import com.BackEnd.dto.CartStatusDTO;
 import com.BackEnd.model.Cart;
 import com.BackEnd.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +20,12 @@ import java.util.Optional;
 public interface CartRepository extends JpaRepository<Cart, Long> {
         Optional<Cart> findCartByUserAndStatus(User user, Cart.CartStatus status);
 
+        // Chi lay id, khong nap User/Cart; moi nhat truoc neu lo co nhieu gio ACTIVE
+        @Query("SELECT c.cartId FROM Cart c WHERE c.user.userName = :userName AND c.status = :status " +
+                        "ORDER BY c.cartId DESC")
+        List<Long> findCartIdsByUserNameAndStatus(@Param("userName") String userName,
+                        @Param("status") Cart.CartStatus status);
+
         @Query("SELECT ci.id, p.images FROM CartItem ci " +
                         "JOIN ci.product p " +
                         "WHERE ci.cart.id = :cartId")
@@ -27,6 +38,131 @@ public interface CartRepository extends JpaRepository<Cart, Long> {
                         "GROUP BY ci.cart_item_id", nativeQuery = true)
         List<String> findImageUrlPerCartItem(@Param("cartId") Long cartId);
 
+        @Query("SELECT new com.BackEnd.dto.CartStatusDTO(c.cartId, c.status, c.totalPrice, c.itemCount) " +
+                        "FROM Cart c WHERE c.cartId = :cartId")
+        Optional<CartStatusDTO> findStatusDTOByCartId(@Param("cartId") Long cartId);
+
+        @Query("SELECT c.totalPrice FROM Cart c WHERE c.cartId = :cartId")
+        Optional<Double> findTotalPriceByCartId(@Param("cartId") Long cartId);
+
+        /*
+         * Cap nhat tong tien / so luong theo delta trong cung transaction voi thay doi
+         * cart_item (moi cau khoa dong cart nen cac delta dong thoi khong mat nhau).
+         */
+        @Modifying
+        @Query(value = "UPDATE cart SET " +
+                        "total_price = total_price + :quantity * (SELECT p.price FROM product p WHERE p.product_id = :productId), " +
+                        "item_count = item_count + :quantity, updated_at = CURRENT_TIMESTAMP " +
+                        "WHERE cart_id = :cartId", nativeQuery = true)
+        int applyItemDelta(@Param("cartId") Long cartId, @Param("productId") Long productId,
+                        @Param("quantity") int quantity);
+
+        @Modifying
+        @Query(value = "UPDATE cart c " +
+                        "JOIN cart_item ci ON ci.cart_id = c.cart_id " +
+                        "JOIN product p ON p.product_id = ci.product_id " +
+                        "SET c.total_price = c.total_price + :quantity * p.price, " +
+                        "c.item_count = c.item_count + :quantity, c.updated_at = CURRENT_TIMESTAMP " +
+                        "WHERE ci.cart_item_id = :cartItemId", nativeQuery = true)
+        int applyItemDeltaByCartItemId(@Param("cartItemId") Long cartItemId, @Param("quantity") int quantity);
+
+        // Tru ca dong cart_item khoi tong, goi truoc khi xoa dong do
+        @Modifying
+        @Query(value = "UPDATE cart c " +
+                        "JOIN cart_item ci ON ci.cart_id = c.cart_id " +
+                        "JOIN product p ON p.product_id = ci.product_id " +
+                        "SET c.total_price = c.total_price - ci.quantity * p.price, " +
+                        "c.item_count = c.item_count - ci.quantity, c.updated_at = CURRENT_TIMESTAMP " +
+                        "WHERE ci.cart_id = :cartId AND ci.product_id = :productId", nativeQuery = true)
+        int subtractItem(@Param("cartId") Long cartId, @Param("productId") Long productId);
+
+        // Xoa san pham: chi sua tong gio ACTIVE, gio da dat hang giu tong luc dat hang
+        @Modifying
+        @Query(value = "UPDATE cart c " +
+                        "JOIN cart_item ci ON ci.cart_id = c.cart_id " +
+                        "JOIN product p ON p.product_id = ci.product_id " +
+                        "SET c.total_price = c.total_price - ci.quantity * p.price, " +
+                        "c.item_count = c.item_count - ci.quantity " +
+                        "WHERE ci.product_id = :productId AND c.status = 'ACTIVE'", nativeQuery = true)
+        int subtractProductFromAllCarts(@Param("productId") Long productId);
+
+        @Modifying
+        @Query(value = "UPDATE cart SET total_price = 0, item_count = 0, updated_at = CURRENT_TIMESTAMP " +
+                        "WHERE cart_id = :cartId", nativeQuery = true)
+        int resetTotals(@Param("cartId") Long cartId);
+
+        // Tinh lai tu cart_item (set-based), dung khi khong co delta hoac khi sua lech
+        @Transactional
+        @Modifying
+        @Query(value = "UPDATE cart c SET " +
+                        "total_price = (SELECT COALESCE(SUM(ci.quantity * p.price), 0) FROM cart_item ci " +
+                        "JOIN product p ON p.product_id = ci.product_id WHERE ci.cart_id = c.cart_id), " +
+                        "item_count = (SELECT COALESCE(SUM(ci.quantity), 0) FROM cart_item ci WHERE ci.cart_id = c.cart_id), " +
+                        "updated_at = CURRENT_TIMESTAMP " +
+                        "WHERE c.cart_id IN (:cartIds)", nativeQuery = true)
+        int recomputeTotals(@Param("cartIds") Collection<Long> cartIds);
+
+        /*
+         * Nhu recomputeTotals nhung cho ca 1 khoang cart_id: chi cac gio ACTIVE co chua
+         * 1 trong cac san pham vua doi gia. Duyet theo khoa chinh, kiem tra bang unique
+         * (cart_id, product_id) nen chi phi moi cau chi phu thuoc do rong khoang.
+         * Khong dung updated_at: doi gia khong phai user dung gio (xem findAbandonedCartIds).
+         */
+        @Transactional
+        @Modifying
+        @Query(value = "UPDATE cart c SET " +
+                        "total_price = (SELECT COALESCE(SUM(ci.quantity * p.price), 0) FROM cart_item ci " +
+                        "JOIN product p ON p.product_id = ci.product_id WHERE ci.cart_id = c.cart_id) " +
+                        "WHERE c.cart_id > :afterId AND c.cart_id <= :upToId AND c.status = 'ACTIVE' " +
+                        "AND EXISTS (SELECT 1 FROM cart_item x WHERE x.cart_id = c.cart_id " +
+                        "AND x.product_id IN (:productIds))", nativeQuery = true)
+        int repriceActiveCarts(@Param("productIds") Collection<Long> productIds, @Param("afterId") Long afterId,
+                        @Param("upToId") Long upToId);
+
+        // Cac gio ACTIVE trong khoang id co tong luu khac tong tinh tu cart_item
+        // (gio da SUBMITTED/COMPLETED giu nguyen tong luc dat hang)
+        @Query(value = "SELECT c.cart_id FROM cart c " +
+                        "WHERE c.cart_id > :afterId AND c.cart_id <= :upToId AND c.status = 'ACTIVE' AND (" +
+                        "ABS(c.total_price - (SELECT COALESCE(SUM(ci.quantity * p.price), 0) FROM cart_item ci " +
+                        "JOIN product p ON p.product_id = ci.product_id WHERE ci.cart_id = c.cart_id)) > 0.001 " +
+                        "OR c.item_count <> (SELECT COALESCE(SUM(ci.quantity), 0) FROM cart_item ci WHERE ci.cart_id = c.cart_id))",
+                        nativeQuery = true)
+        List<Long> findCartIdsWithDriftedTotals(@Param("afterId") Long afterId, @Param("upToId") Long upToId);
+
+        @Query("SELECT MAX(c.cartId) FROM Cart c")
+        Long findMaxCartId();
+
+        /*
+         * Gio bo quen: ACTIVE/SUBMITTED, khong doi tu truoc cutoff, khong co order tro toi.
+         * Doc khong khoa, duyet theo keyset cart_id.
+         */
+        @Query(value = "SELECT c.cart_id FROM cart c " +
+                        "WHERE c.cart_id > :afterId AND c.status IN ('ACTIVE', 'SUBMITTED') AND c.updated_at < :cutoff " +
+                        "AND NOT EXISTS (SELECT 1 FROM orders o WHERE o.cart_id = c.cart_id) " +
+                        "ORDER BY c.cart_id LIMIT :limit", nativeQuery = true)
+        List<Long> findAbandonedCartIds(@Param("afterId") Long afterId, @Param("cutoff") LocalDateTime cutoff,
+                        @Param("limit") int limit);
+
+        // Khoa theo khoa chinh (khong khoa khoang) va kiem tra lai: gio vua duoc dung thi bo qua
+        @Query(value = "SELECT c.cart_id FROM cart c " +
+                        "WHERE c.cart_id IN (:cartIds) AND c.status IN ('ACTIVE', 'SUBMITTED') AND c.updated_at < :cutoff " +
+                        "AND NOT EXISTS (SELECT 1 FROM orders o WHERE o.cart_id = c.cart_id) " +
+                        "FOR UPDATE", nativeQuery = true)
+        List<Long> lockAbandonedCarts(@Param("cartIds") Collection<Long> cartIds,
+                        @Param("cutoff") LocalDateTime cutoff);
+
+        @Modifying
+        @Query("DELETE FROM Cart c WHERE c.cartId IN :cartIds")
+        int deleteByCartIds(@Param("cartIds") Collection<Long> cartIds);
+
+        // Khoa rieng dong cart (khong khoa product nhu FOR UPDATE tren cau fetch join)
+        @Query(value = "SELECT cart_id FROM cart WHERE cart_id = :cartId FOR UPDATE", nativeQuery = true)
+        Optional<Long> lockCartRow(@Param("cartId") Long cartId);
+
+        @Query("SELECT DISTINCT c FROM Cart c LEFT JOIN FETCH c.cartItems ci LEFT JOIN FETCH ci.product " +
+                        "WHERE c.cartId = :cartId")
+        Optional<Cart> findWithItemsByCartId(@Param("cartId") Long cartId);
+
         @Query("SELECT c.user FROM Cart c WHERE c.cartId = :cartId")
         User findUserByCartId(@Param("cartId") Long cartId);
 
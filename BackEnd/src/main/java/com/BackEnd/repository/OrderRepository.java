@@ -1,10 +1,18 @@
 package com.BackEnd.repository;
 
+import com.BackEnd.dto.OrderSummaryDTO;
 import com.BackEnd.model.Order;
 import com.BackEnd.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -19,8 +27,63 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
 
     Order findByOrderCode(Long orderCode);
 
+    @Query("SELECT MAX(o.orderCode) FROM Order o")
+    Long findMaxOrderCode();
+
+    // Ghi QR sau khi PayOS tra ve (goi tu thread cua pool PayOS, khong co transaction san)
+    @Transactional
+    @Modifying
+    @Query("UPDATE Order o SET o.qrCodeToCheckout = :qrCode WHERE o.orderCode = :orderCode")
+    int updateQrCode(@Param("orderCode") Long orderCode, @Param("qrCode") String qrCode);
+
+    // Huy don chua thanh toan va go cart_id: gio quay lai ACTIVE checkout lai khong bi 2 order tro vao
+    @Transactional
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :status, o.cart = NULL WHERE o.orderCode = :orderCode")
+    int cancelAndDetachCart(@Param("orderCode") Long orderCode, @Param("status") Order.OrderStatus status);
+
     List<Order> findByStatus(Order.OrderStatus status);
 
     List<Order> findByUserAndStatus(User user, Order.OrderStatus status);
 
+    // Ban dung de map sang OrderDTO: user, payment, orderDetails, product nap cung luc
+    @EntityGraph("Order.withDetails")
+    @Query("SELECT o FROM Order o")
+    List<Order> findAllWithDetails();
+
+    @EntityGraph("Order.withDetails")
+    List<Order> findWithDetailsByStatus(Order.OrderStatus status);
+
+    @EntityGraph("Order.withDetails")
+    List<Order> findWithDetailsByUserAndStatus(User user, Order.OrderStatus status);
+
+    @EntityGraph("Order.withDetails")
+    Order findWithDetailsByOrderCode(Long orderCode);
+
+    /*
+     * Keyset pagination cho admin: don moi nhat truoc, chi doc cac dong co order_id nho
+     * hon dong cuoi trang truoc. Tham so null = bo dieu kien do (MySQL gap NULL IS NULL
+     * khi bind thi bo luon nhanh OR, van dung duoc index status/user/created_at).
+     * Pageable chi dung de gioi han so dong, khong co count query.
+     */
+    @Query("SELECT new com.BackEnd.dto.OrderSummaryDTO(o.orderId, o.orderCode, u.userName, o.createdAt, " +
+            "o.totalPrice, o.status) " +
+            "FROM Order o JOIN o.user u " +
+            "WHERE o.orderId < :beforeId " +
+            "AND (:status IS NULL OR o.status = :status) " +
+            "AND (:userName IS NULL OR u.userName = :userName) " +
+            "AND (:from IS NULL OR o.createdAt >= :from) " +
+            "AND (:to IS NULL OR o.createdAt < :to) " +
+            "AND (:minAmount IS NULL OR o.totalPrice >= :minAmount) " +
+            "AND (:maxAmount IS NULL OR o.totalPrice <= :maxAmount) " +
+            "ORDER BY o.orderId DESC")
+    List<OrderSummaryDTO> searchPage(@Param("beforeId") Long beforeId,
+            @Param("status") Order.OrderStatus status,
+            @Param("userName") String userName,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("minAmount") Double minAmount,
+            @Param("maxAmount") Double maxAmount,
+            Pageable limit);
+
 }
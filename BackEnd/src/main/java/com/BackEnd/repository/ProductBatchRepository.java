@@ -0,0 +1,78 @@
+package com.BackEnd.repository;
+
+import com.BackEnd.dto.ProductImportRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Insert product hang loat bang JDBC batch. Product dung IDENTITY nen Hibernate
+ * khong batch duoc insert; o day dung executeBatch + getGeneratedKeys roi batch
+ * tiep product_images. Nen bat rewriteBatchedStatements=true tren JDBC URL.
+ * Phai goi trong transaction (JdbcTemplate dung chung connection voi JPA).
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProductBatchRepository {
+
+    private static final String INSERT_PRODUCT = "INSERT INTO product " +
+            "(name, brand, category, price, quantity, description, year_of_manufacture, size, material, " +
+            "version, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 0, CURRENT_TIMESTAMP)";
+    private static final String INSERT_IMAGE = "INSERT INTO product_images (product_id, image_url) VALUES (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Tra ve product_id theo dung thu tu cua rows
+    public List<Long> insertProducts(List<ProductImportRow> rows) {
+        List<Long> ids = jdbcTemplate.execute((ConnectionCallback<List<Long>>) con -> {
+            List<Long> generated = new ArrayList<>(rows.size());
+            try (PreparedStatement ps = con.prepareStatement(INSERT_PRODUCT, Statement.RETURN_GENERATED_KEYS)) {
+                for (ProductImportRow row : rows) {
+                    ps.setString(1, row.getName());
+                    ps.setString(2, row.getBrand());
+                    ps.setString(3, row.getCategory());
+                    ps.setDouble(4, row.getPrice());
+                    ps.setInt(5, row.getQuantity());
+                    ps.setString(6, row.getDescription());
+                    if (row.getYearOfManufacture() == null) {
+                        ps.setNull(7, Types.INTEGER);
+                    } else {
+                        ps.setInt(7, row.getYearOfManufacture());
+                    }
+                    ps.setString(8, row.getSize());
+                    ps.setString(9, row.getMaterial());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        generated.add(keys.getLong(1));
+                    }
+                }
+            }
+            return generated;
+        });
+        if (ids == null || ids.size() != rows.size()) {
+            throw new IllegalStateException("Generated keys mismatch: expected " + rows.size());
+        }
+
+        List<Object[]> images = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            for (String url : rows.get(i).getImageUrls()) {
+                images.add(new Object[] { ids.get(i), url });
+            }
+        }
+        if (!images.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_IMAGE, images);
+        }
+        return ids;
+    }
+}
@@ -1,18 +1,34 @@
 package com.BackEnd.repository;
 
+import com.BackEnd.dto.CatalogVersion;
+import com.BackEnd.dto.ProductCardDTO;
+import com.BackEnd.dto.ProductExportView;
 import com.BackEnd.model.Product;
+import com.BackEnd.search.IndexedProduct;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.web.bind.annotation.RequestMapping;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
+    // Projection "card" cho cac trang danh sach: khong doc description (TEXT) va product_images
+    String CARD_SELECT = "SELECT new com.BackEnd.dto.ProductCardDTO(p.productId, p.name, p.brand, " +
+            "p.category, p.size, p.material, p.price, p.rating.count, p.rating.sum) FROM Product p ";
+
     Optional<Product> findByProductId(Long productId);
 
     // Optional<List<String>> findImageByProductId(Long productId);
@@ -23,4 +39,67 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT p.images FROM Product p WHERE p.productId = :productId")
     Optional<List<String>> findImageByProductId(@Param("productId") Long productId);
 
+    // Cong 1 review vao tong hop rating, tang version de ETag cua product doi theo
+    @Modifying
+    @Query("UPDATE Product p SET " +
+            "p.rating.count = p.rating.count + 1, " +
+            "p.rating.sum = p.rating.sum + :rating, " +
+            "p.rating.oneStar = p.rating.oneStar + CASE WHEN :rating = 1 THEN 1 ELSE 0 END, " +
+            "p.rating.twoStar = p.rating.twoStar + CASE WHEN :rating = 2 THEN 1 ELSE 0 END, " +
+            "p.rating.threeStar = p.rating.threeStar + CASE WHEN :rating = 3 THEN 1 ELSE 0 END, " +
+            "p.rating.fourStar = p.rating.fourStar + CASE WHEN :rating = 4 THEN 1 ELSE 0 END, " +
+            "p.rating.fiveStar = p.rating.fiveStar + CASE WHEN :rating = 5 THEN 1 ELSE 0 END, " +
+            "p.version = p.version + 1, p.updatedAt = :now " +
+            "WHERE p.productId = :productId")
+    int addRating(@Param("productId") Long productId, @Param("rating") int rating,
+            @Param("now") LocalDateTime now);
+
+    // Thay doi khi co them/sua/xoa bat ky product nao
+    @Query("SELECT new com.BackEnd.dto.CatalogVersion(COUNT(p), MAX(p.productId), SUM(p.version), " +
+            "MAX(p.updatedAt)) FROM Product p")
+    CatalogVersion findCatalogVersion();
+
+    // Tra ve cap (productId, imageUrl) cho nhieu san pham trong 1 query IN
+    @Query("SELECT p.productId, i FROM Product p JOIN p.images i WHERE p.productId IN :productIds")
+    List<Object[]> findImagesByProductIds(@Param("productIds") Collection<Long> productIds);
+
+    // Keyset pagination: chi doc cac dong sau ban ghi cuoi cua trang truoc,
+    // Pageable chi dung de gioi han so dong (khong co count query)
+    @Query(CARD_SELECT + "WHERE p.productId > :afterId ORDER BY p.productId ASC")
+    List<ProductCardDTO> findPageOrderById(@Param("afterId") Long afterId, Pageable limit);
+
+    @Query(CARD_SELECT +
+            "WHERE p.price > :afterPrice OR (p.price = :afterPrice AND p.productId > :afterId) " +
+            "ORDER BY p.price ASC, p.productId ASC")
+    List<ProductCardDTO> findPageOrderByPrice(@Param("afterPrice") Double afterPrice,
+            @Param("afterId") Long afterId, Pageable limit);
+
+    @Query(CARD_SELECT +
+            "WHERE p.name > :afterName OR (p.name = :afterName AND p.productId > :afterId) " +
+            "ORDER BY p.name ASC, p.productId ASC")
+    List<ProductCardDTO> findPageOrderByName(@Param("afterName") String afterName,
+            @Param("afterId") Long afterId, Pageable limit);
+
+    /*
+     * Export toan bo catalog theo dang stream: fetch size Integer.MIN_VALUE bat che do
+     * streaming tung dong cua MySQL Connector/J thay vi load ca result set vao heap.
+     * Phai goi trong transaction va dong Stream sau khi dung.
+     * Anh dai dien = anh dau tien theo thu tu list nhu images.get(0): product_images khong co
+     * cot thu tu, list duoc nap theo index product_id (thu tu insert), LIMIT 1 doc cung index do.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query(value = "SELECT p.product_id AS productId, p.name AS name, p.brand AS brand, " +
+            "p.category AS category, p.price AS price, p.quantity AS quantity, " +
+            "p.description AS description, p.year_of_manufacture AS yearOfManufacture, " +
+            "p.size AS size, p.material AS material, " +
+            "(SELECT pi.image_url FROM product_images pi WHERE pi.product_id = p.product_id LIMIT 1) AS imageUrl " +
+            "FROM product p ORDER BY p.product_id", nativeQuery = true)
+    Stream<ProductExportView> streamCatalogForExport();
+
+    // Du lieu cho index in-memory, khong join product_images
+    @Query("SELECT new com.BackEnd.search.IndexedProduct(p.productId, p.name, p.brand, p.category, " +
+            "p.material, p.description, p.size, p.price, p.rating.count, p.rating.sum) " +
+            "FROM Product p WHERE p.productId > :afterId ORDER BY p.productId ASC")
+    List<IndexedProduct> findIndexPage(@Param("afterId") Long afterId, Pageable limit);
+
 }
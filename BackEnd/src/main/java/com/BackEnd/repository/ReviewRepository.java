@@ -0,0 +1,23 @@
+package com.BackEnd.repository;
+
+import com.BackEnd.dto.ReviewDTO;
+import com.BackEnd.model.Review;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ReviewRepository extends JpaRepository<Review, Long> {
+
+    // Review moi nhat truoc, keyset theo reviewId
+    @Query("SELECT new com.BackEnd.dto.ReviewDTO(r.reviewId, u.userName, r.rating, r.comment, r.createdAt) " +
+            "FROM Review r JOIN r.user u " +
+            "WHERE r.product.productId = :productId AND r.reviewId < :beforeId " +
+            "ORDER BY r.reviewId DESC")
+    List<ReviewDTO> findPageByProductId(@Param("productId") Long productId,
+            @Param("beforeId") Long beforeId, Pageable limit);
+}
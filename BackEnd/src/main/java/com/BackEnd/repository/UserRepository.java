@@ -2,6 +2,8 @@ package com.BackEnd.repository;
 
 import com.BackEnd.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -10,5 +12,8 @@ import java.util.Optional;
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUserName(String userName);
 
+    @Query("SELECT u.userId FROM User u WHERE u.userName = :userName")
+    Optional<Long> findUserIdByUserName(@Param("userName") String userName);
+
     Optional<User> findByGmail(String gmail);
 }
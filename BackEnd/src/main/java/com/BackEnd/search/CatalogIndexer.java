@@ -0,0 +1,79 @@
+package com.BackEnd.search;
+
+import com.BackEnd.model.Product;
+import com.BackEnd.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/*
+ * Diem dong bo duy nhat giua ProductService va cac index in-memory:
+ * build toan bo luc startup, sau do cap nhat tung product khi co ghi.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogIndexer {
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private final ProductRepository productRepo;
+    private final ProductSearchIndex searchIndex;
+    private final ProductFacetIndex facetIndex;
+    private final ProductAutocompleteIndex autocompleteIndex;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        searchIndex.clear();
+        facetIndex.clear();
+        autocompleteIndex.clear();
+        long afterId = 0L;
+        int loaded = 0;
+        while (true) {
+            List<IndexedProduct> batch = productRepo.findIndexPage(afterId, PageRequest.of(0, LOAD_BATCH_SIZE));
+            if (batch.isEmpty()) {
+                break;
+            }
+            searchIndex.indexAll(batch);
+            facetIndex.indexAll(batch);
+            autocompleteIndex.load(batch);
+            loaded += batch.size();
+            afterId = batch.get(batch.size() - 1).productId();
+        }
+        autocompleteIndex.rebuildNow();
+        log.info("Catalog index built: {} products in {} ms", loaded, System.currentTimeMillis() - start);
+    }
+
+    public void onProductSaved(Product product) {
+        if (product == null || product.getProductId() == null) {
+            return;
+        }
+        IndexedProduct indexed = IndexedProduct.from(product);
+        searchIndex.index(indexed);
+        facetIndex.index(indexed);
+        autocompleteIndex.put(indexed);
+    }
+
+    public void onProductsImported(List<IndexedProduct> products) {
+        searchIndex.indexAll(products);
+        facetIndex.indexAll(products);
+        autocompleteIndex.putAll(products);
+    }
+
+    // Chi facet index hien rating (tren card); goi sau khi review da commit
+    public void onRatingAdded(Long productId, int rating) {
+        facetIndex.addRating(productId, rating);
+    }
+
+    public void onProductDeleted(Long productId) {
+        searchIndex.remove(productId);
+        facetIndex.remove(productId);
+        autocompleteIndex.remove(productId);
+    }
+}
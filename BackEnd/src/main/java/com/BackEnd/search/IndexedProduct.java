@@ -0,0 +1,40 @@
+package com.BackEnd.search;
+
+import com.BackEnd.model.Product;
+
+/*
+ * Ban sao gon cua Product dung cho cac index in-memory (khong co images/reviews).
+ * Duoc load bang constructor expression trong ProductRepository.
+ */
+public record IndexedProduct(
+        Long productId,
+        String name,
+        String brand,
+        String category,
+        String material,
+        String description,
+        String size,
+        Double price,
+        Integer ratingCount,
+        // tong so sao, cung ratingCount cho ra diem trung binh tren card
+        Long ratingSum) {
+
+    public static IndexedProduct from(Product product) {
+        return new IndexedProduct(
+                product.getProductId(),
+                product.getName(),
+                product.getBrand(),
+                product.getCategory(),
+                product.getMaterial(),
+                product.getDescription(),
+                product.getSize(),
+                product.getPrice(),
+                product.getRating() == null ? 0 : product.getRating().getCount(),
+                product.getRating() == null ? 0L : product.getRating().getSum());
+    }
+
+    public IndexedProduct withRatingAdded(int rating) {
+        return new IndexedProduct(productId, name, brand, category, material, description, size, price,
+                (ratingCount == null ? 0 : ratingCount) + 1, (ratingSum == null ? 0L : ratingSum) + rating);
+    }
+}
@@ -0,0 +1,243 @@
+package com.BackEnd.search;
+
+import com.BackEnd.dto.SuggestionDTO;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * Goi y tim kiem theo tien to cho ten san pham va brand.
+ *
+ * Snapshot bat bien gom mang key da sap xep (ten da bo dau + cac hau to bat dau
+ * tu moi tu) tro toi suggestion. Tien to ngan (<= 3 ky tu) co nhieu key khop nen
+ * top-k duoc tinh san; tien to dai hon thi binary search ra khoang key nho va
+ * quet. Khi co ghi, snapshot duoc build lai o background (gom nhieu ghi lien tiep).
+ */
+@Component
+@Slf4j
+public class ProductAutocompleteIndex {
+
+    public static final int MAX_SUGGESTIONS = 10;
+
+    private static final int PRECOMPUTED_PREFIX_LENGTH = 3;
+    private static final int MAX_WORD_KEYS = 6;
+    private static final long REBUILD_DELAY_MS = 500;
+
+    private final Map<Long, IndexedProduct> products = new ConcurrentHashMap<>();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService rebuilder = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "autocomplete-rebuild");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    public void put(IndexedProduct product) {
+        products.put(product.productId(), product);
+        scheduleRebuild();
+    }
+
+    public void putAll(Collection<IndexedProduct> batch) {
+        batch.forEach(p -> products.put(p.productId(), p));
+        scheduleRebuild();
+    }
+
+    public void remove(Long productId) {
+        products.remove(productId);
+        scheduleRebuild();
+    }
+
+    public void clear() {
+        products.clear();
+        snapshot = Snapshot.EMPTY;
+    }
+
+    // Nap luc startup, khong len lich rebuild (goi rebuildNow sau khi nap xong)
+    void load(Collection<IndexedProduct> batch) {
+        batch.forEach(p -> products.put(p.productId(), p));
+    }
+
+    public List<SuggestionDTO> suggest(String prefix, int limit) {
+        String key = normalizeKey(prefix);
+        int k = Math.min(Math.max(limit, 1), MAX_SUGGESTIONS);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        Snapshot current = snapshot;
+        int[] top;
+        if (key.length() <= PRECOMPUTED_PREFIX_LENGTH) {
+            top = current.shortPrefixTop.getOrDefault(key, new int[0]);
+        } else {
+            top = current.scan(key);
+        }
+        List<SuggestionDTO> result = new ArrayList<>(Math.min(k, top.length));
+        for (int i = 0; i < top.length && result.size() < k; i++) {
+            Suggestion s = current.suggestions[top[i]];
+            result.add(new SuggestionDTO(s.text, s.type, s.productId));
+        }
+        return result;
+    }
+
+    // Build dong bo, dung luc startup sau khi da nap het product
+    public void rebuildNow() {
+        long start = System.currentTimeMillis();
+        snapshot = Snapshot.build(products.values());
+        log.info("Autocomplete index rebuilt: {} suggestions in {} ms",
+                snapshot.suggestions.length, System.currentTimeMillis() - start);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    private void scheduleRebuild() {
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            rebuilder.schedule(() -> {
+                rebuildScheduled.set(false);
+                try {
+                    rebuildNow();
+                } catch (RuntimeException e) {
+                    log.error("Autocomplete rebuild failed", e);
+                }
+            }, REBUILD_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static String normalizeKey(String text) {
+        return String.join(" ", TextNormalizer.tokenize(text));
+    }
+
+    private record Suggestion(String text, String type, Long productId, long weight) {
+    }
+
+    private static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(new Suggestion[0], new String[0], new int[0], Map.of());
+
+        final Suggestion[] suggestions;
+        // keys[i] tro toi suggestions[targets[i]], keys da sap xep
+        final String[] keys;
+        final int[] targets;
+        final Map<String, int[]> shortPrefixTop;
+
+        Snapshot(Suggestion[] suggestions, String[] keys, int[] targets, Map<String, int[]> shortPrefixTop) {
+            this.suggestions = suggestions;
+            this.keys = keys;
+            this.targets = targets;
+            this.shortPrefixTop = shortPrefixTop;
+        }
+
+        static Snapshot build(Collection<IndexedProduct> products) {
+            List<Suggestion> suggestions = new ArrayList<>();
+            Map<String, long[]> brands = new HashMap<>();
+            Map<String, String> brandNames = new HashMap<>();
+            for (IndexedProduct p : products) {
+                if (p.name() != null && !p.name().isBlank()) {
+                    // do pho bien: so luot danh gia
+                    long weight = 1L + (p.ratingCount() == null ? 0 : p.ratingCount());
+                    suggestions.add(new Suggestion(p.name(), "product", p.productId(), weight));
+                }
+                String brandKey = normalizeKey(p.brand());
+                if (!brandKey.isEmpty()) {
+                    brands.computeIfAbsent(brandKey, b -> new long[1])[0]++;
+                    brandNames.putIfAbsent(brandKey, p.brand().trim());
+                }
+            }
+            // brand xep theo so san pham, uu tien hon 1 san pham don le
+            brands.forEach((key, count) -> suggestions.add(
+                    new Suggestion(brandNames.get(key), "brand", null, count[0] * 10)));
+
+            // sap theo weight giam dan: index nho hon = pho bien hon
+            suggestions.sort((a, b) -> Long.compare(b.weight, a.weight));
+            Suggestion[] ranked = suggestions.toArray(new Suggestion[0]);
+
+            List<KeyEntry> entries = new ArrayList<>();
+            for (int i = 0; i < ranked.length; i++) {
+                List<String> words = TextNormalizer.tokenize(ranked[i].text);
+                for (int w = 0; w < words.size() && w < MAX_WORD_KEYS; w++) {
+                    entries.add(new KeyEntry(String.join(" ", words.subList(w, words.size())), i));
+                }
+            }
+            entries.sort((a, b) -> {
+                int c = a.key.compareTo(b.key);
+                return c != 0 ? c : Integer.compare(a.target, b.target);
+            });
+            String[] keys = new String[entries.size()];
+            int[] targets = new int[entries.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = entries.get(i).key;
+                targets[i] = entries.get(i).target;
+            }
+
+            Map<String, TopK> shortTop = new HashMap<>();
+            for (int i = 0; i < keys.length; i++) {
+                int max = Math.min(PRECOMPUTED_PREFIX_LENGTH, keys[i].length());
+                for (int len = 1; len <= max; len++) {
+                    shortTop.computeIfAbsent(keys[i].substring(0, len), p -> new TopK()).offer(targets[i]);
+                }
+            }
+            Map<String, int[]> shortPrefixTop = new HashMap<>(shortTop.size() * 2);
+            shortTop.forEach((prefix, top) -> shortPrefixTop.put(prefix, top.toArray()));
+            return new Snapshot(ranked, keys, targets, shortPrefixTop);
+        }
+
+        // Quet cac key bat dau bang prefix (khoang nho vi prefix dai)
+        int[] scan(String prefix) {
+            int from = Arrays.binarySearch(keys, prefix);
+            if (from < 0) {
+                from = -from - 1;
+            }
+            TopK top = new TopK();
+            for (int i = from; i < keys.length && keys[i].startsWith(prefix); i++) {
+                top.offer(targets[i]);
+            }
+            return top.toArray();
+        }
+    }
+
+    private record KeyEntry(String key, int target) {
+    }
+
+    // Giu MAX_SUGGESTIONS suggestion index nho nhat (= pho bien nhat), khong trung
+    private static final class TopK {
+        private final int[] values = new int[MAX_SUGGESTIONS];
+        private int size;
+
+        void offer(int target) {
+            int pos = size;
+            for (int i = 0; i < size; i++) {
+                if (values[i] == target) {
+                    return;
+                }
+                if (values[i] > target && pos == size) {
+                    pos = i;
+                }
+            }
+            if (pos >= MAX_SUGGESTIONS) {
+                return;
+            }
+            int end = Math.min(size, MAX_SUGGESTIONS - 1);
+            System.arraycopy(values, pos, values, pos + 1, end - pos);
+            values[pos] = target;
+            if (size < MAX_SUGGESTIONS) {
+                size++;
+            }
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
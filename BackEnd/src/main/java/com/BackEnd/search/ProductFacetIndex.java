@@ -0,0 +1,300 @@
+package com.BackEnd.search;
+
+import com.BackEnd.dto.FacetSearchResponse;
+import com.BackEnd.dto.ProductCardDTO;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/*
+ * Faceted filtering in-memory: moi san pham co 1 ordinal, moi gia tri facet
+ * giu 1 BitSet cac ordinal. Loc = AND giua cac facet, OR trong cung facet.
+ * So dem cua facet X tinh tren tap da loc boi cac facet KHAC X
+ * (de UI van hien duoc cac lua chon con lai cua X).
+ * Khoang gia: mang ordinal sap theo gia + binary search, build lai lazily sau moi lan ghi.
+ */
+@Component
+public class ProductFacetIndex {
+
+    public static final String BRAND = "brand";
+    public static final String CATEGORY = "category";
+    public static final String SIZE = "size";
+    public static final String MATERIAL = "material";
+
+    private static final Map<String, Function<IndexedProduct, List<String>>> FACETS = new LinkedHashMap<>();
+
+    static {
+        FACETS.put(BRAND, p -> single(p.brand()));
+        FACETS.put(CATEGORY, p -> single(p.category()));
+        // size luu dang "39,40,41"
+        FACETS.put(SIZE, p -> split(p.size()));
+        FACETS.put(MATERIAL, p -> single(p.material()));
+    }
+
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final List<IndexedProduct> products = new ArrayList<>();
+    private final BitSet live = new BitSet();
+    private final Map<String, Map<String, BitSet>> postings = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // null = da cu (co ghi tu lan build truoc); ghi duoi write lock
+    private volatile PriceOrder priceOrder;
+
+    // cac san pham live co gia, tang dan theo gia; prices[i] la gia cua ordinals[i]
+    private record PriceOrder(double[] prices, int[] ordinals) {
+    }
+
+    public ProductFacetIndex() {
+        FACETS.keySet().forEach(facet -> postings.put(facet, new HashMap<>()));
+    }
+
+    public void index(IndexedProduct product) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(product.productId());
+            if (ordinal == null) {
+                ordinal = products.size();
+                products.add(product);
+                ordinals.put(product.productId(), ordinal);
+            } else {
+                unsetValues(ordinal, products.get(ordinal));
+                products.set(ordinal, product);
+            }
+            int ord = ordinal;
+            FACETS.forEach((facet, extractor) -> extractor.apply(product).forEach(value -> postings.get(facet)
+                    .computeIfAbsent(value, v -> new BitSet())
+                    .set(ord)));
+            live.set(ord);
+            priceOrder = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Review moi: cap nhat rating tren card, khong dung toi posting
+    public void addRating(Long productId, int rating) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(productId);
+            if (ordinal != null) {
+                products.set(ordinal, products.get(ordinal).withRatingAdded(rating));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void indexAll(Collection<IndexedProduct> batch) {
+        batch.forEach(this::index);
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(productId);
+            if (ordinal == null) {
+                return;
+            }
+            unsetValues(ordinal, products.get(ordinal));
+            // ordinal khong tai su dung, se duoc don khi rebuild
+            products.set(ordinal, null);
+            live.clear(ordinal);
+            priceOrder = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            ordinals.clear();
+            products.clear();
+            live.clear();
+            postings.values().forEach(Map::clear);
+            priceOrder = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public FacetSearchResponse search(Map<String, List<String>> selected, Double minPrice, Double maxPrice,
+            int offset, int limit) {
+        boolean priceFilter = minPrice != null || maxPrice != null;
+        if (priceFilter && priceOrder == null) {
+            lock.writeLock().lock();
+            try {
+                if (priceOrder == null) {
+                    priceOrder = buildPriceOrder();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        lock.readLock().lock();
+        try {
+            BitSet base;
+            if (priceFilter) {
+                // co ghi chen vao giua 2 lan khoa: build ban tam, khong luu
+                PriceOrder order = priceOrder;
+                if (order == null) {
+                    order = buildPriceOrder();
+                }
+                int from = minPrice == null ? 0 : lowerBound(order.prices(), minPrice);
+                int to = maxPrice == null ? order.prices().length : upperBound(order.prices(), maxPrice);
+                base = new BitSet(products.size());
+                for (int i = from; i < to; i++) {
+                    base.set(order.ordinals()[i]);
+                }
+            } else {
+                base = (BitSet) live.clone();
+            }
+
+            Map<String, BitSet> filters = new HashMap<>();
+            selected.forEach((facet, values) -> {
+                Map<String, BitSet> facetPostings = postings.get(facet);
+                if (facetPostings == null || values == null || values.isEmpty()) {
+                    return;
+                }
+                BitSet union = new BitSet();
+                values.forEach(value -> {
+                    BitSet bits = facetPostings.get(value);
+                    if (bits != null) {
+                        union.or(bits);
+                    }
+                });
+                filters.put(facet, union);
+            });
+
+            BitSet result = (BitSet) base.clone();
+            filters.values().forEach(result::and);
+
+            Map<String, Map<String, Integer>> counts = new LinkedHashMap<>();
+            for (String facet : FACETS.keySet()) {
+                BitSet scope = (BitSet) base.clone();
+                filters.forEach((other, bits) -> {
+                    if (!other.equals(facet)) {
+                        scope.and(bits);
+                    }
+                });
+                Map<String, Integer> valueCounts = new TreeMap<>();
+                postings.get(facet).forEach((value, bits) -> {
+                    BitSet hit = (BitSet) bits.clone();
+                    hit.and(scope);
+                    int count = hit.cardinality();
+                    if (count > 0) {
+                        valueCounts.put(value, count);
+                    }
+                });
+                counts.put(facet, valueCounts);
+            }
+
+            List<ProductCardDTO> items = new ArrayList<>(limit);
+            int skipped = 0;
+            for (int ord = result.nextSetBit(0); ord >= 0 && items.size() < limit; ord = result.nextSetBit(ord + 1)) {
+                if (skipped++ < offset) {
+                    continue;
+                }
+                IndexedProduct p = products.get(ord);
+                items.add(new ProductCardDTO(p.productId(), p.name(), p.brand(), p.category(),
+                        p.size(), p.material(), p.price(), p.ratingCount(), p.ratingSum()));
+            }
+            return new FacetSearchResponse(result.cardinality(), items, counts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // goi duoi khoa (read hoac write)
+    private PriceOrder buildPriceOrder() {
+        List<Integer> priced = new ArrayList<>(live.cardinality());
+        for (int ord = live.nextSetBit(0); ord >= 0; ord = live.nextSetBit(ord + 1)) {
+            if (products.get(ord).price() != null) {
+                priced.add(ord);
+            }
+        }
+        priced.sort(Comparator.comparingDouble(ord -> products.get(ord).price()));
+        double[] prices = new double[priced.size()];
+        int[] ords = new int[priced.size()];
+        for (int i = 0; i < ords.length; i++) {
+            ords[i] = priced.get(i);
+            prices[i] = products.get(ords[i]).price();
+        }
+        return new PriceOrder(prices, ords);
+    }
+
+    // vi tri dau tien co gia >= key
+    private static int lowerBound(double[] prices, double key) {
+        int lo = 0;
+        int hi = prices.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (prices[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // vi tri dau tien co gia > key
+    private static int upperBound(double[] prices, double key) {
+        int lo = 0;
+        int hi = prices.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (prices[mid] <= key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private void unsetValues(int ordinal, IndexedProduct old) {
+        if (old == null) {
+            return;
+        }
+        FACETS.forEach((facet, extractor) -> extractor.apply(old).forEach(value -> {
+            Map<String, BitSet> facetPostings = postings.get(facet);
+            BitSet bits = facetPostings.get(value);
+            if (bits != null) {
+                bits.clear(ordinal);
+                if (bits.isEmpty()) {
+                    facetPostings.remove(value);
+                }
+            }
+        }));
+    }
+
+    private static List<String> single(String value) {
+        if (value == null || value.isBlank()) {
+            return List.of();
+        }
+        return List.of(value.trim());
+    }
+
+    private static List<String> split(String value) {
+        if (value == null || value.isBlank()) {
+            return List.of();
+        }
+        List<String> values = new ArrayList<>();
+        for (String part : value.split(",")) {
+            if (!part.isBlank()) {
+                values.add(part.trim());
+            }
+        }
+        return values;
+    }
+}
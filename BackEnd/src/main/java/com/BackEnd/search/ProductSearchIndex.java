@@ -0,0 +1,166 @@
+package com.BackEnd.search;
+
+import com.BackEnd.dto.ProductSearchHit;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+ * Inverted index in-memory cho full-text search tren product:
+ * term -> (productId -> trong so theo field). Ghi it (CRUD product), doc nhieu
+ * nen dung ReadWriteLock.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float BRAND_WEIGHT = 2.0f;
+    private static final float CATEGORY_WEIGHT = 2.0f;
+    private static final float MATERIAL_WEIGHT = 1.0f;
+    private static final float DESCRIPTION_WEIGHT = 0.5f;
+
+    private final Map<String, Map<Long, Float>> postings = new HashMap<>();
+    private final Map<Long, IndexedProduct> documents = new HashMap<>();
+    private final Map<Long, Set<String>> documentTerms = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void index(IndexedProduct product) {
+        Map<String, Float> termWeights = new HashMap<>();
+        addField(termWeights, product.name(), NAME_WEIGHT);
+        addField(termWeights, product.brand(), BRAND_WEIGHT);
+        addField(termWeights, product.category(), CATEGORY_WEIGHT);
+        addField(termWeights, product.material(), MATERIAL_WEIGHT);
+        addField(termWeights, product.description(), DESCRIPTION_WEIGHT);
+
+        lock.writeLock().lock();
+        try {
+            removeInternal(product.productId());
+            termWeights.forEach((term, weight) -> postings
+                    .computeIfAbsent(term, t -> new HashMap<>())
+                    .put(product.productId(), weight));
+            documents.put(product.productId(), product);
+            documentTerms.put(product.productId(), termWeights.keySet());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void indexAll(Collection<IndexedProduct> products) {
+        products.forEach(this::index);
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            documentTerms.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*
+     * Xep hang: san pham khop nhieu term cua query hon dung truoc,
+     * cung so term thi so sanh tong (trong so field * idf).
+     */
+    public List<ProductSearchHit> search(String query, int limit) {
+        Set<String> terms = new LinkedHashSet<>(TextNormalizer.tokenize(query));
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int totalDocs = documents.size();
+            Map<Long, Double> scores = new HashMap<>();
+            Map<Long, Integer> matchedTerms = new HashMap<>();
+            for (String term : terms) {
+                Map<Long, Float> docs = postings.get(term);
+                if (docs == null) {
+                    continue;
+                }
+                double idf = Math.log(1.0 + (double) totalDocs / docs.size());
+                docs.forEach((productId, weight) -> {
+                    scores.merge(productId, weight * idf, Double::sum);
+                    matchedTerms.merge(productId, 1, Integer::sum);
+                });
+            }
+
+            Comparator<Long> ranking = Comparator
+                    .comparing((Long id) -> matchedTerms.get(id))
+                    .thenComparing(id -> scores.get(id))
+                    .thenComparing(Comparator.<Long>reverseOrder());
+            // min-heap giu top `limit`
+            PriorityQueue<Long> top = new PriorityQueue<>(limit + 1, ranking);
+            for (Long productId : scores.keySet()) {
+                top.offer(productId);
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+
+            List<ProductSearchHit> hits = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                Long productId = top.poll();
+                IndexedProduct product = documents.get(productId);
+                hits.add(new ProductSearchHit(product.productId(), product.name(), product.brand(),
+                        product.category(), product.price(), scores.get(productId)));
+            }
+            Collections.reverse(hits);
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeInternal(Long productId) {
+        Set<String> terms = documentTerms.remove(productId);
+        if (terms != null) {
+            for (String term : terms) {
+                Map<Long, Float> docs = postings.get(term);
+                if (docs != null) {
+                    docs.remove(productId);
+                    if (docs.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            }
+        }
+        documents.remove(productId);
+    }
+
+    private void addField(Map<String, Float> termWeights, String text, float weight) {
+        for (String token : TextNormalizer.tokenize(text)) {
+            termWeights.merge(token, weight, Float::sum);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.BackEnd.service;
+
+import com.BackEnd.repository.CartItemRepository;
+import com.BackEnd.repository.CartRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Xoa gio hang bo quen (ACTIVE/SUBMITTED, khong co order, khong thay doi qua
+ * app.cart.sweep-idle-days ngay) cung cart_item cua no.
+ *
+ * Duyet keyset theo cart_id; moi lo la 1 transaction ngan: khoa dung cac dong cart
+ * cua lo theo khoa chinh, xoa cart_item roi xoa cart. Moi lan chay toi da
+ * max-batches lo, phan con lai de lan sau.
+ */
+@Component
+@Slf4j
+public class AbandonedCartSweeper {
+
+    private final CartRepository cartRepo;
+    private final CartItemRepository cartItemRepo;
+    private final CartSessionStore sessionStore;
+    private final ActiveCartCache activeCarts;
+    private final TransactionTemplate transactionTemplate;
+    private final int idleDays;
+    private final int batchSize;
+    private final int maxBatches;
+
+    public AbandonedCartSweeper(CartRepository cartRepo, CartItemRepository cartItemRepo,
+            CartSessionStore sessionStore, ActiveCartCache activeCarts, TransactionTemplate transactionTemplate,
+            @Value("${app.cart.sweep-idle-days:30}") int idleDays,
+            @Value("${app.cart.sweep-batch-size:500}") int batchSize,
+            @Value("${app.cart.sweep-max-batches:200}") int maxBatches) {
+        this.cartRepo = cartRepo;
+        this.cartItemRepo = cartItemRepo;
+        this.sessionStore = sessionStore;
+        this.activeCarts = activeCarts;
+        this.transactionTemplate = transactionTemplate;
+        this.idleDays = idleDays;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+    }
+
+    @Scheduled(cron = "${app.cart.sweep-cron:0 30 3 * * *}")
+    public void sweep() {
+        long start = System.currentTimeMillis();
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(idleDays);
+        long afterId = 0L;
+        int carts = 0;
+        int items = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            List<Long> candidates = cartRepo.findAbandonedCartIds(afterId, cutoff, batchSize);
+            if (candidates.isEmpty()) {
+                break;
+            }
+            afterId = candidates.get(candidates.size() - 1);
+            // gio dang nam trong bo nho (write-behind) thi khong dung toi
+            List<Long> ids = candidates.stream().filter(id -> !sessionStore.isLoaded(id)).toList();
+            if (ids.isEmpty()) {
+                continue;
+            }
+            try {
+                List<Long> deleted = new ArrayList<>();
+                int deletedItems = transactionTemplate.execute(status -> {
+                    List<Long> locked = cartRepo.lockAbandonedCarts(ids, cutoff);
+                    if (locked.isEmpty()) {
+                        return 0;
+                    }
+                    int n = cartItemRepo.deleteByCartIds(locked);
+                    cartRepo.deleteByCartIds(locked);
+                    deleted.addAll(locked);
+                    return n;
+                });
+                activeCarts.invalidateCarts(deleted);
+                carts += deleted.size();
+                items += deletedItems;
+            } catch (DataAccessException e) {
+                // vd deadlock voi 1 request vua dung lai gio: bo lo nay, lan sau quet lai
+                log.warn("Cart sweep batch after cart {} skipped: {}", afterId, e.getMessage());
+            }
+        }
+        log.info("Cart sweep: purged {} carts and {} cart items idle since {} in {} ms",
+                carts, items, cutoff, System.currentTimeMillis() - start);
+    }
+}
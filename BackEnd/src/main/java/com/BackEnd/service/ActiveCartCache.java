@@ -0,0 +1,74 @@
+package com.BackEnd.service;
+
+import com.BackEnd.dto.CacheStatsDTO;
+import com.BackEnd.dto.CartBasicInfoDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/*
+ * userName -> gio ACTIVE hien tai (GET /app/cart moi lan tai trang).
+ * Bo khi trang thai gio thay doi (doi status, checkout, thanh toan, bi don);
+ * TTL chi la luoi an toan cho thay doi ngoai CartService.
+ */
+@Component
+public class ActiveCartCache {
+
+    private final Cache<String, CartBasicInfoDTO> activeCarts;
+    // cartId -> userName, de bo entry theo cartId khong phai quet ca cache
+    private final Map<Long, String> cartToUser = new ConcurrentHashMap<>();
+
+    public ActiveCartCache(@Value("${app.cart.active-cache.max-size:10000}") long maxSize,
+            @Value("${app.cart.active-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.activeCarts = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                // chay trong cung thao tac evict (size/TTL) nen index khong lech voi cache
+                .evictionListener((String userName, CartBasicInfoDTO cart, RemovalCause cause) -> {
+                    if (userName != null && cart != null) {
+                        cartToUser.remove(cart.getCartId(), userName);
+                    }
+                })
+                .build();
+    }
+
+    // loader chay 1 lan cho moi userName du nhieu request cung miss (khong tao 2 gio)
+    public CartBasicInfoDTO get(String userName, Function<String, CartBasicInfoDTO> loader) {
+        return activeCarts.get(userName, key -> {
+            CartBasicInfoDTO cart = loader.apply(key);
+            // ghi index truoc khi entry hien ra trong cache
+            cartToUser.put(cart.getCartId(), key);
+            return cart;
+        });
+    }
+
+    public void invalidateCart(Long cartId) {
+        if (cartId == null) {
+            return;
+        }
+        String userName = cartToUser.remove(cartId);
+        if (userName != null) {
+            activeCarts.invalidate(userName);
+        }
+    }
+
+    public void invalidateCarts(Collection<Long> cartIds) {
+        cartIds.forEach(this::invalidateCart);
+    }
+
+    public CacheStatsDTO getStats() {
+        CacheStats stats = activeCarts.stats();
+        return new CacheStatsDTO("activeCarts", activeCarts.estimatedSize(), stats.hitCount(), stats.missCount(),
+                stats.evictionCount(), stats.hitRate());
+    }
+}
@@ -2,39 +2,58 @@ package com.BackEnd.service;
 
 import com.BackEnd.dto.BasicCartItemDTO;
 import com.BackEnd.dto.CartItemDTO;
-import com.BackEnd.model.CartItem;
 import com.BackEnd.repository.CartItemRepository;
-import com.BackEnd.utils.DTOConverter;
+import com.BackEnd.repository.CartRepository;
 import lombok.NoArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 public class CartItemService {
     private CartItemRepository cartItemRepo;
+    private CartRepository cartRepo;
+    private CartSessionStore sessionStore;
+    private CartLockManager cartLocks;
+    private TransactionTemplate transactionTemplate;
 
-    public CartItemService(CartItemRepository cartItemRepo) {
+    public CartItemService(CartItemRepository cartItemRepo, CartRepository cartRepo,
+            CartSessionStore sessionStore, CartLockManager cartLocks, TransactionTemplate transactionTemplate) {
         this.cartItemRepo = cartItemRepo;
+        this.cartRepo = cartRepo;
+        this.sessionStore = sessionStore;
+        this.cartLocks = cartLocks;
+        this.transactionTemplate = transactionTemplate;
     }
 
     public BasicCartItemDTO increaseQuantity(Long cartItemId) {
-        CartItem cartItem = cartItemRepo.findById(cartItemId)
-                .orElseThrow(() -> new RuntimeException("CartItem not found"));
-
-        cartItem.setQuantity(cartItem.getQuantity() + 1);
-        cartItemRepo.save(cartItem);
-        return DTOConverter.toBasicCartItemDTO(cartItem);
+        return adjustQuantity(cartItemId, 1);
     }
 
+    // quantity = 1 thi giu nguyen (dieu kien trong cau UPDATE)
     public BasicCartItemDTO decreaseQuantity(Long cartItemId) {
-        CartItem cartItem = cartItemRepo.findById(cartItemId)
-                .orElseThrow(() -> new RuntimeException("CartItem not found"));
+        return adjustQuantity(cartItemId, -1);
+    }
 
-        if (cartItem.getQuantity() > 1) {
-            cartItem.setQuantity(cartItem.getQuantity() - 1);
+    /*
+     * UPDATE co dieu kien roi doc lai trong cung transaction: dong da bi khoa boi
+     * UPDATE nen gia tri doc duoc chinh la gia tri vua ghi.
+     * Khoa theo cart nhu cac thao tac trong CartService.
+     */
+    private BasicCartItemDTO adjustQuantity(Long cartItemId, int delta) {
+        if (sessionStore.isEnabled()) {
+            Long cartId = sessionStore.findCartId(cartItemId);
+            return cartLocks.withLock(cartId, () -> sessionStore.adjust(cartId, cartItemId, delta));
         }
-        cartItemRepo.save(cartItem);
-        return DTOConverter.toBasicCartItemDTO(cartItem);
+        Long cartId = cartItemRepo.findCartIdByCartItemId(cartItemId)
+                .orElseThrow(() -> new RuntimeException("CartItem not found"));
+        return cartLocks.withLock(cartId, () -> transactionTemplate.execute(status -> {
+            if (cartItemRepo.adjustQuantity(cartItemId, delta) > 0) {
+                cartRepo.applyItemDeltaByCartItemId(cartItemId, delta);
+            }
+            return cartItemRepo.findBasicDTOById(cartItemId)
+                    .orElseThrow(() -> new RuntimeException("CartItem not found"));
+        }));
     }
 
 }
@@ -0,0 +1,122 @@
+package com.BackEnd.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/*
+ * Journal append-only cua CartSessionStore, chia thanh cac segment danh so tang dan.
+ * Moi lan flush toan bo store thi mo segment moi; flush xong thi xoa cac segment cu
+ * (noi dung cua chung da nam trong DB). Moi dong duoc flush xuong OS ngay khi ghi:
+ * chiu duoc process crash, khong fsync nen khong dam bao khi mat dien.
+ */
+class CartJournal {
+
+    private static final String PREFIX = "cart-";
+    private static final String SUFFIX = ".journal";
+
+    private final Path dir;
+    private long segment;
+    private BufferedWriter writer;
+
+    CartJournal(Path dir) {
+        this.dir = dir;
+        try {
+            Files.createDirectories(dir);
+            List<Long> existing = segmentNumbers();
+            this.segment = existing.isEmpty() ? 1 : existing.get(existing.size() - 1) + 1;
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open cart journal in " + dir, e);
+        }
+    }
+
+    synchronized void append(String line) {
+        try {
+            writer.write(line);
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write cart journal", e);
+        }
+    }
+
+    // Cac dong ghi sau lan goi nay vao segment moi; tra ve so cua segment moi
+    synchronized long rotate() {
+        try {
+            writer.close();
+            segment++;
+            open();
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot rotate cart journal", e);
+        }
+    }
+
+    synchronized void deleteSegmentsBefore(long upTo) {
+        try {
+            for (Long n : segmentNumbers()) {
+                if (n < upTo) {
+                    Files.deleteIfExists(path(n));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot delete cart journal segments", e);
+        }
+    }
+
+    // Noi dung cac segment cu hon segment dang ghi, theo thu tu (dung khi replay luc startup)
+    synchronized List<String> readSegmentsBefore(long upTo) {
+        List<String> lines = new ArrayList<>();
+        try {
+            for (Long n : segmentNumbers()) {
+                if (n < upTo) {
+                    lines.addAll(Files.readAllLines(path(n), StandardCharsets.UTF_8));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read cart journal", e);
+        }
+        return lines;
+    }
+
+    synchronized long currentSegment() {
+        return segment;
+    }
+
+    synchronized void close() {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot close cart journal", e);
+        }
+    }
+
+    private void open() throws IOException {
+        writer = Files.newBufferedWriter(path(segment), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private Path path(long n) {
+        return dir.resolve(String.format("%s%019d%s", PREFIX, n, SUFFIX));
+    }
+
+    private List<Long> segmentNumbers() throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.map(p -> p.getFileName().toString())
+                    .filter(name -> name.startsWith(PREFIX) && name.endsWith(SUFFIX))
+                    .forEach(name -> numbers.add(Long.parseLong(
+                            name.substring(PREFIX.length(), name.length() - SUFFIX.length()))));
+        }
+        numbers.sort(null);
+        return numbers;
+    }
+}
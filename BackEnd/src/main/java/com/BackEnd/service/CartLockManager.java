@@ -0,0 +1,103 @@
+package com.BackEnd.service;
+
+import com.BackEnd.dto.CartLockStatsDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/*
+ * Khoa theo cart (striped): moi cartId roi vao 1 trong N ReentrantLock, thao tac
+ * tren cung 1 gio chay tuan tu, gio khac nhau chay song song (tru khi trung stripe).
+ * Phai lay khoa BEN NGOAI transaction de thread sau thay du lieu da commit.
+ * Chi co tac dung trong 1 instance; nhieu instance thi van dua vao khoa dong DB.
+ */
+@Component
+@Slf4j
+public class CartLockManager {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+    private final long warnNanos;
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder contended = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public CartLockManager(@Value("${app.cart.lock-stripes:256}") int stripeCount,
+            @Value("${app.cart.lock-warn-ms:200}") long warnMillis) {
+        // lam tron len luy thua cua 2 de chon stripe bang phep AND
+        int size = Integer.highestOneBit(Math.max(stripeCount, 1) - 1) << 1;
+        size = Math.max(size, 1);
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+        this.warnNanos = TimeUnit.MILLISECONDS.toNanos(warnMillis);
+    }
+
+    public <T> T withLock(Long cartId, Supplier<T> action) {
+        ReentrantLock lock = stripeFor(cartId);
+        acquisitions.increment();
+        if (!lock.tryLock()) {
+            // phai cho: gio nay (hoac gio cung stripe) dang duoc thao tac
+            contended.increment();
+            long start = System.nanoTime();
+            lock.lock();
+            long waited = System.nanoTime() - start;
+            totalWaitNanos.add(waited);
+            maxWaitNanos.accumulateAndGet(waited, Math::max);
+            if (waited > warnNanos) {
+                log.warn("Cart {} waited {} ms for its lock ({} threads still queued)", cartId,
+                        TimeUnit.NANOSECONDS.toMillis(waited), lock.getQueueLength());
+            }
+        }
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void withLock(Long cartId, Runnable action) {
+        withLock(cartId, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public CartLockStatsDTO getStats() {
+        long total = acquisitions.sum();
+        long waits = contended.sum();
+        int queued = 0;
+        int busyStripes = 0;
+        for (ReentrantLock lock : stripes) {
+            queued += lock.getQueueLength();
+            if (lock.isLocked()) {
+                busyStripes++;
+            }
+        }
+        return new CartLockStatsDTO(
+                stripes.length,
+                total,
+                waits,
+                total == 0 ? 0.0 : (double) waits / total,
+                waits == 0 ? 0.0 : totalWaitNanos.sum() / 1_000_000.0 / waits,
+                maxWaitNanos.get() / 1_000_000.0,
+                busyStripes,
+                queued);
+    }
+
+    private ReentrantLock stripeFor(Long cartId) {
+        int h = Long.hashCode(cartId);
+        h ^= (h >>> 16);
+        return stripes[h & mask];
+    }
+}
@@ -0,0 +1,90 @@
+package com.BackEnd.service;
+
+import com.BackEnd.repository.CartRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Tinh lai tong tien cac gio ACTIVE sau khi san pham doi gia (cart_item khong luu
+ * gia, chi cart.total_price bi cu). San pham doi gia duoc gom vao hang doi; moi
+ * lan chay lay toi da products-per-pass san pham, quet cart theo khoang cart_id,
+ * moi khoang la 1 cau UPDATE set-based trong transaction rieng.
+ * Loi giua chung: tra san pham ve hang doi, lan sau tinh lai tu dau (idempotent).
+ */
+@Component
+@Slf4j
+public class CartRepricer {
+
+    private final CartRepository cartRepo;
+    private final int rangeSize;
+    private final int productsPerPass;
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+    public CartRepricer(CartRepository cartRepo,
+            @Value("${app.cart.reprice-range-size:5000}") int rangeSize,
+            @Value("${app.cart.reprice-products-per-pass:1000}") int productsPerPass) {
+        this.cartRepo = cartRepo;
+        this.rangeSize = rangeSize;
+        this.productsPerPass = productsPerPass;
+    }
+
+    public void enqueue(Collection<Long> productIds) {
+        pending.addAll(productIds);
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.cart.reprice-interval-ms:5000}")
+    public void drain() {
+        while (!pending.isEmpty()) {
+            List<Long> productIds = take();
+            if (!repriceAll(productIds)) {
+                pending.addAll(productIds);
+                return;
+            }
+        }
+    }
+
+    private List<Long> take() {
+        List<Long> taken = new ArrayList<>(productsPerPass);
+        Iterator<Long> it = pending.iterator();
+        while (it.hasNext() && taken.size() < productsPerPass) {
+            taken.add(it.next());
+            it.remove();
+        }
+        return taken;
+    }
+
+    private boolean repriceAll(List<Long> productIds) {
+        Long maxId = cartRepo.findMaxCartId();
+        if (maxId == null) {
+            return true;
+        }
+        long start = System.currentTimeMillis();
+        int carts = 0;
+        for (long afterId = 0; afterId < maxId; afterId += rangeSize) {
+            try {
+                carts += cartRepo.repriceActiveCarts(productIds, afterId, afterId + rangeSize);
+            } catch (DataAccessException e) {
+                log.warn("Cart repricing for {} products stopped at cart {}: {}", productIds.size(), afterId,
+                        e.getMessage());
+                return false;
+            }
+        }
+        log.info("Cart repricing: {} carts updated for {} products in {} ms", carts, productIds.size(),
+                System.currentTimeMillis() - start);
+        return true;
+    }
+}
@@ -1,8 +1,14 @@
 package com.BackEnd.service;
 
 import com.BackEnd.dto.AddToCartRequest;
-import com.BackEnd.dto.BasicCartInfoDto;
+import com.BackEnd.dto.CacheStatsDTO;
+import com.BackEnd.dto.CartBasicInfoDTO;
+import com.BackEnd.dto.CartBatchRequest;
+import com.BackEnd.dto.CartBatchResponse;
 import com.BackEnd.dto.CartItemDTO;
+import com.BackEnd.dto.CartLockStatsDTO;
+import com.BackEnd.dto.CartOperation;
+import com.BackEnd.dto.CartStatusDTO;
 import com.BackEnd.dto.CreateOrderResponse;
 import com.BackEnd.model.Cart;
 import com.BackEnd.model.CartItem;
@@ -22,26 +28,42 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class CartService {
 
+    // 1 batch = 1 transaction giu khoa dong cart: gioi han de request lon khong giu khoa lau
+    static final int MAX_BATCH_OPERATIONS = 100;
+
     private final CartRepository cartRepo;
     private final CartItemRepository cartItemRepo;
     private final ProductRepository productRepo;
     private final UserRepository userRepo;
     private final OrderRepository orderRepository;
+    private final CartSessionStore sessionStore;
+    private final CartLockManager cartLocks;
+    private final ActiveCartCache activeCarts;
+    private final OrderCodeGenerator orderCodeGenerator;
+    private final TransactionTemplate transactionTemplate;
 
     public CreateOrderResponse createOrder(Long cartId) {
         try {
+            flushCart(cartId);
             // Lấy giỏ hàng và user
             Cart cart = getCartByCartId(cartId);
             User user = getUserByCartId(cartId);
@@ -57,7 +79,7 @@ public class CartService {
 
             // Tạo đơn hàng mới
             Order order = new Order();
-            order.setOrderCode(generateOrderCode());
+            order.setOrderCode(orderCodeGenerator.next());
             order.setCreatedAt(LocalDateTime.now());
             order.setStatus(Order.OrderStatus.PENDING);
             order.setCart(cart);
@@ -79,70 +101,216 @@ public class CartService {
         }
     }
 
-    private Long generateOrderCode() {
-        // Logic tạo orderCode duy nhất (có thể dùng timestamp + random)
-        return System.currentTimeMillis();
+    /*
+     * GET /app/cart: userName -> gio ACTIVE qua ActiveCartCache; khi miss chi doc
+     * userId va cartId (khong nap entity), chua co gio thi tao moi.
+     */
+    public CartBasicInfoDTO getOrCreateActiveCart(String userName) {
+        return activeCarts.get(userName, this::loadOrCreateActiveCart);
     }
 
-    public BasicCartInfoDto getOrCreateActiveCartDTO(String userName) {
-        User user = userRepo.findByUserName(userName)
+    private CartBasicInfoDTO loadOrCreateActiveCart(String userName) {
+        Long userId = userRepo.findUserIdByUserName(userName)
                 .orElseThrow(() -> new RuntimeException("Not found user: " + userName));
-        Cart cart = cartRepo.findCartByUserAndStatus(user, Cart.CartStatus.ACTIVE)
-                .orElseGet(() -> {
-                    Cart newCart = new Cart();
-                    newCart.setUser(user);
-                    newCart.setStatus(Cart.CartStatus.ACTIVE);
-                    return cartRepo.save(newCart);
-                });
-        return DTOConverter.toCartBasicInfoDTO(cart);
+        List<Long> cartIds = cartRepo.findCartIdsByUserNameAndStatus(userName, Cart.CartStatus.ACTIVE);
+        if (!cartIds.isEmpty()) {
+            return new CartBasicInfoDTO(cartIds.get(0), Cart.CartStatus.ACTIVE.name());
+        }
+        Cart newCart = new Cart();
+        newCart.setUser(userRepo.getReferenceById(userId));
+        newCart.setStatus(Cart.CartStatus.ACTIVE);
+        return new CartBasicInfoDTO(cartRepo.save(newCart).getCartId(), Cart.CartStatus.ACTIVE.name());
     }
 
+    // Goi khi trang thai gio bi doi ngoai changeCartStatus (vd thanh toan xong)
+    public void evictActiveCart(Long cartId) {
+        activeCarts.invalidateCart(cartId);
+    }
+
+    /*
+     * Upsert tren unique (cart_id, product_id): them moi hoac cong don trong 1 cau,
+     * hai request them cung san pham dong thoi khong tao 2 dong / mat so luong.
+     * Cart/product khong ton tai -> vi pham khoa ngoai.
+     * Cac thao tac ghi gio hang: khoa theo cart roi moi mo transaction.
+     */
     public CartItemDTO addItemToCart(AddToCartRequest req) {
         if (req.getQuantity() <= 0) {
             throw new IllegalArgumentException("Quantity must be greater than 0");
         }
-        Cart cart = cartRepo.findById(req.getCartId())
+        return cartLocks.withLock(req.getCartId(), () -> {
+            if (sessionStore.isEnabled()) {
+                return sessionStore.add(req.getCartId(), req.getProductId(), req.getQuantity());
+            }
+            return transactionTemplate.execute(status -> {
+                try {
+                    cartItemRepo.upsertQuantity(req.getCartId(), req.getProductId(), req.getQuantity());
+                } catch (DataIntegrityViolationException e) {
+                    throw new RuntimeException(
+                            "Cart or product not found: " + req.getCartId() + "/" + req.getProductId(), e);
+                }
+                cartRepo.applyItemDelta(req.getCartId(), req.getProductId(), req.getQuantity());
+                return cartItemRepo.findItemDTO(req.getCartId(), req.getProductId())
+                        .orElseThrow(() -> new RuntimeException("No product found in cart: " + req.getProductId()));
+            });
+        });
+    }
+
+    /*
+     * Ap dung danh sach thao tac theo dung thu tu trong 1 transaction: khoa dong cart,
+     * load cart + item + product 1 lan, sua tren entity roi tinh lai tong 1 lan.
+     * Mot thao tac khong hop le -> rollback ca batch.
+     */
+    public CartBatchResponse applyBatch(CartBatchRequest req) {
+        if (req.getOperations() == null || req.getOperations().isEmpty()) {
+            throw new IllegalArgumentException("No cart operations");
+        }
+        if (req.getOperations().size() > MAX_BATCH_OPERATIONS) {
+            throw new IllegalArgumentException("Too many cart operations: " + req.getOperations().size()
+                    + " (max " + MAX_BATCH_OPERATIONS + ")");
+        }
+        return cartLocks.withLock(req.getCartId(), () -> {
+            flushCart(req.getCartId());
+            return transactionTemplate.execute(status -> applyBatchInTransaction(req));
+        });
+    }
+
+    private CartBatchResponse applyBatchInTransaction(CartBatchRequest req) {
+        // khoa truoc khi doc: cac thao tac don le (cong tru tong tren dong cart) phai cho batch xong
+        if (cartRepo.lockCartRow(req.getCartId()).isEmpty()) {
+            throw new RuntimeException("Cart not found: " + req.getCartId());
+        }
+        Cart cart = cartRepo.findWithItemsByCartId(req.getCartId())
                 .orElseThrow(() -> new RuntimeException("Cart not found: " + req.getCartId()));
-        Product product = productRepo.findByProductId(req.getProductId())
-                .orElseThrow(() -> new RuntimeException("Product not found: " + req.getProductId()));
 
-        CartItem item = cartItemRepo.findByCartIdAndProductId(req.getCartId(), req.getProductId())
-                .map(existing -> {
-                    existing.setQuantity(existing.getQuantity() + req.getQuantity());
-                    return cartItemRepo.save(existing);
-                })
-                .orElseGet(() -> {
-                    CartItem newItem = new CartItem(product, req.getQuantity(), cart);
-                    CartItem saved = cartItemRepo.save(newItem);
-                    cart.getCartItems().add(saved);
-                    return saved;
-                });
+        Map<Long, CartItem> items = new LinkedHashMap<>();
+        cart.getCartItems().forEach(ci -> items.put(ci.getProduct().getProductId(), ci));
+        // xoa roi them lai cung san pham: dung lai entity cu, neu khong Hibernate se
+        // insert dong moi truoc khi delete dong cu -> trung unique (cart_id, product_id)
+        Map<Long, CartItem> removed = new HashMap<>();
+        Map<Long, Product> newProducts = loadProductsToAdd(req.getOperations(), items.keySet());
 
-        cartRepo.save(cart);
-        return DTOConverter.toCartItemDTO(item);
+        for (CartOperation op : req.getOperations()) {
+            if (op.getType() == null) {
+                throw new IllegalArgumentException("Missing operation type");
+            }
+            if (op.getType() == CartOperation.Type.CLEAR) {
+                removed.putAll(items);
+                items.clear();
+                continue;
+            }
+            Long productId = op.getProductId();
+            if (productId == null) {
+                throw new IllegalArgumentException("Missing productId for " + op.getType());
+            }
+            CartItem item = items.get(productId);
+            switch (op.getType()) {
+                case ADD -> {
+                    int quantity = requirePositive(op.getQuantity());
+                    if (item != null) {
+                        item.setQuantity(item.getQuantity() + quantity);
+                    } else {
+                        CartItem added = removed.remove(productId);
+                        if (added != null) {
+                            added.setQuantity(quantity);
+                        } else {
+                            Product product = newProducts.get(productId);
+                            if (product == null) {
+                                throw new RuntimeException("Product not found: " + productId);
+                            }
+                            added = new CartItem(product, quantity, cart);
+                        }
+                        items.put(productId, added);
+                    }
+                }
+                case SET -> requireItem(item, productId).setQuantity(requirePositive(op.getQuantity()));
+                case INCREASE -> requireItem(item, productId).setQuantity(item.getQuantity() + step(op));
+                // giu toi thieu 1 nhu /cart-item/decrease
+                case DECREASE -> requireItem(item, productId).setQuantity(Math.max(1, item.getQuantity() - step(op)));
+                case REMOVE -> {
+                    requireItem(item, productId);
+                    removed.put(productId, items.remove(productId));
+                }
+                default -> throw new IllegalArgumentException("Unsupported operation: " + op.getType());
+            }
+        }
+
+        // cung instance duoc add lai -> khong bi orphanRemoval; instance moi -> cascade insert
+        cart.getCartItems().clear();
+        cart.getCartItems().addAll(items.values());
+        double total = 0;
+        int count = 0;
+        for (CartItem ci : items.values()) {
+            total += ci.getProduct().getPrice() * ci.getQuantity();
+            count += ci.getQuantity();
+        }
+        cart.setTotalPrice(total);
+        cart.setItemCount(count);
+        cartRepo.saveAndFlush(cart);
+
+        List<CartItemDTO> dtos = new ArrayList<>(items.size());
+        items.values().forEach(ci -> dtos.add(DTOConverter.toCartItemDTO(ci)));
+        return new CartBatchResponse(cart.getCartId(), dtos, total, count);
+    }
+
+    // Product cua cac thao tac ADD chua co trong gio: 1 cau IN
+    private Map<Long, Product> loadProductsToAdd(List<CartOperation> operations, Set<Long> inCart) {
+        Set<Long> ids = new HashSet<>();
+        for (CartOperation op : operations) {
+            if (op.getType() == CartOperation.Type.ADD && op.getProductId() != null
+                    && !inCart.contains(op.getProductId())) {
+                ids.add(op.getProductId());
+            }
+        }
+        Map<Long, Product> products = new HashMap<>();
+        if (!ids.isEmpty()) {
+            productRepo.findAllById(ids).forEach(p -> products.put(p.getProductId(), p));
+        }
+        return products;
+    }
+
+    private static CartItem requireItem(CartItem item, Long productId) {
+        if (item == null) {
+            throw new RuntimeException("No product found in cart: " + productId);
+        }
+        return item;
+    }
+
+    private static int requirePositive(Integer quantity) {
+        if (quantity == null || quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than 0");
+        }
+        return quantity;
+    }
+
+    private static int step(CartOperation op) {
+        return op.getQuantity() == null ? 1 : requirePositive(op.getQuantity());
     }
 
-    @Transactional
     public void removeItemFromCart(Long cartId, Long productId) {
-        Cart cart = cartRepo.findById(cartId)
-                .orElseThrow(() -> new RuntimeException("Cart not found" + cartId));
-        CartItem item = cartItemRepo.findByCartIdAndProductId(cartId, productId)
-                .orElseThrow(() -> new RuntimeException("No products found in cart: " + productId));
-        cart.getCartItems().remove(item);
-        cartItemRepo.delete(item);
-        cartRepo.save(cart);
+        cartLocks.withLock(cartId, () -> {
+            if (sessionStore.isEnabled()) {
+                sessionStore.remove(cartId, productId);
+                return;
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                // tru khoi tong truoc (khoa dong cart_item) roi moi xoa
+                if (cartRepo.subtractItem(cartId, productId) == 0) {
+                    throw new RuntimeException("No products found in cart: " + productId);
+                }
+                cartItemRepo.deleteByCartIdAndProductId(cartId, productId);
+            });
+        });
     }
 
     @Transactional
     public void removeAllItemsByProductId(Long productId) {
+        sessionStore.removeProduct(productId);
+        cartRepo.subtractProductFromAllCarts(productId);
         cartItemRepo.deleteByProductId(productId);
     }
 
-    public List<CartItem> getAllCartItemsInActiveCart(Long cartId) {
-        Cart cart = cartRepo.findById(cartId)
-                .orElseThrow(() -> new RuntimeException("Cart not found"));
-
-        return cart.getCartItems();
+    public List<CartItemDTO> getAllCartItemsInActiveCart(Long cartId) {
+        return getCartItemsInActiveCart(cartId);
     }
 
     public Cart getCartByCartId(Long cartId) {
@@ -153,9 +321,12 @@ public class CartService {
 
     public String changeCartStatus(Long cartId, Cart.CartStatus status) {
         try {
-            Cart cart = getCartByCartId(cartId);
-            cart.setStatus(status);
-            cartRepo.save(cart);
+            cartLocks.withLock(cartId, () -> {
+                Cart cart = getCartByCartId(cartId);
+                cart.setStatus(status);
+                cartRepo.save(cart);
+            });
+            activeCarts.invalidateCart(cartId);
             return "Cart status updated successfully";
         } catch (EntityNotFoundException e) {
             return "Cart not found";
@@ -166,18 +337,30 @@ public class CartService {
         }
     }
 
-    @Transactional
     public void clearCart(Long cartId) {
-        Cart cart = cartRepo.findById(cartId)
-                .orElseThrow(() -> new RuntimeException("Cart not found: " + cartId));
-        cartItemRepo.deleteAll(cart.getCartItems());
-        cart.getCartItems().clear();
-        cartRepo.save(cart);
+        cartLocks.withLock(cartId, () -> {
+            if (sessionStore.isEnabled()) {
+                sessionStore.clear(cartId);
+                return;
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                if (cartRepo.resetTotals(cartId) == 0) {
+                    throw new RuntimeException("Cart not found: " + cartId);
+                }
+                cartItemRepo.deleteByCartId(cartId);
+            });
+        });
     }
 
-    public Cart getCartStatus(Long cartId) {
-        return cartRepo.findById(cartId)
+    public CartStatusDTO getCartStatus(Long cartId) {
+        CartStatusDTO dto = cartRepo.findStatusDTOByCartId(cartId)
                 .orElseThrow(() -> new RuntimeException("Cart not found: " + cartId));
+        if (sessionStore.isLoaded(cartId)) {
+            // so trong DB co the cham hon bo nho (write-behind chua flush)
+            dto.setTotalPrice(sessionStore.getTotal(cartId));
+            dto.setItemCount(sessionStore.getItemCount(cartId));
+        }
+        return dto;
     }
 
     public List<String> getImageUrlPerCartItem(Long cartId) {
@@ -186,50 +369,48 @@ public class CartService {
     }
 
     public List<CartItemDTO> getCartItemsInActiveCart(Long cartId) {
-        Cart cart = cartRepo.findById(cartId)
-                .orElseThrow(() -> new RuntimeException("Cart not found: " + cartId));
-
-        return cart.getCartItems().stream()
-                .map(ci -> {
-                    Product p = ci.getProduct();
-                    String img = p.getImages().isEmpty() ? "" : p.getImages().get(0);
-                    return new CartItemDTO(
-                            ci.getCartItemId(),
-                            p.getProductId(),
-                            p.getName(),
-                            p.getPrice(),
-                            ci.getQuantity());
-                })
-                .collect(Collectors.toList());
+        if (sessionStore.isEnabled()) {
+            return sessionStore.getItems(cartId);
+        }
+        List<CartItemDTO> items = cartItemRepo.findItemDTOsByCartId(cartId);
+        // chi khi rong moi can phan biet cart rong / cart khong ton tai
+        if (items.isEmpty() && !cartRepo.existsById(cartId)) {
+            throw new RuntimeException("Cart not found: " + cartId);
+        }
+        return items;
     }
 
-    @Transactional
     public CartItemDTO updateItemQuantity(Long cartId, Long productId, int quantity) {
         if (quantity < 1) {
             throw new IllegalArgumentException("Quantity must be greater than 1");
         }
+        return cartLocks.withLock(cartId, () -> {
+            if (sessionStore.isEnabled()) {
+                return sessionStore.setQuantity(cartId, productId, quantity);
+            }
+            return transactionTemplate.execute(status -> {
+                if (cartItemRepo.setQuantity(cartId, productId, quantity) == 0) {
+                    throw new RuntimeException("No product found in cart: " + productId);
+                }
+                // gan gia tri tuyet doi, khong co delta -> tinh lai tong cua 1 cart
+                cartRepo.recomputeTotals(List.of(cartId));
+                return cartItemRepo.findItemDTO(cartId, productId)
+                        .orElseThrow(() -> new RuntimeException("No product found in cart: " + productId));
+            });
+        });
+    }
 
-        Cart cart = cartRepo.findById(cartId)
-                .orElseThrow(() -> new RuntimeException("Cart not found: " + cartId));
-
-        CartItem cartItem = cartItemRepo.findByCartIdAndProductId(cartId, productId)
-                .orElseThrow(() -> new RuntimeException("No product found in cart: " + productId));
-
-        cartItem.setQuantity(quantity);
-        cartItemRepo.save(cartItem);
+    public CartLockStatsDTO getLockStats() {
+        return cartLocks.getStats();
+    }
 
-        return convertToCartItemDTO(cartItem);
+    public CacheStatsDTO getActiveCartCacheStats() {
+        return activeCarts.getStats();
     }
 
-    private CartItemDTO convertToCartItemDTO(CartItem cartItem) {
-        Product p = cartItem.getProduct();
-        String img = p.getImages().isEmpty() ? "" : p.getImages().get(0);
-        return new CartItemDTO(
-                cartItem.getCartItemId(),
-                p.getProductId(),
-                p.getName(),
-                p.getPrice(),
-                cartItem.getQuantity());
+    // Che do write-behind: ghi gio nay xuong DB (checkout / thao tac di thang DB)
+    public void flushCart(Long cartId) {
+        sessionStore.flushAndEvict(cartId);
     }
 
     public User getUserByCartId(Long cartId) {
@@ -237,17 +418,12 @@ public class CartService {
         return user;
     }
 
-    // Thêm phương thức getCartTotalAmount để tính tổng tiền giỏ hàng
+    // Tong tien duoc cap nhat theo moi thay doi gio hang, chi doc 1 cot
     public Double getCartTotalAmount(Long cartId) {
-        Cart cart = cartRepo.findById(cartId)
-                .orElseThrow(() -> new RuntimeException("Cart not found: " + cartId));
-
-        if (cart.getCartItems() == null || cart.getCartItems().isEmpty()) {
-            return 0.0;
+        if (sessionStore.isLoaded(cartId)) {
+            return sessionStore.getTotal(cartId);
         }
-
-        return cart.getCartItems().stream()
-                .mapToDouble(cartItem -> cartItem.getProduct().getPrice() * cartItem.getQuantity())
-                .sum();
+        return cartRepo.findTotalPriceByCartId(cartId)
+                .orElseThrow(() -> new RuntimeException("Cart not found: " + cartId));
     }
 }
\ No newline at end of file
@@ -0,0 +1,537 @@
+package com.BackEnd.service;
+
+import com.BackEnd.dto.BasicCartItemDTO;
+import com.BackEnd.dto.CartItemDTO;
+import com.BackEnd.dto.ProductSnapshot;
+import com.BackEnd.repository.CartItemBatchRepository;
+import com.BackEnd.repository.CartItemRepository;
+import com.BackEnd.repository.CartRepository;
+import com.BackEnd.repository.ProductRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/*
+ * Che do luu gio hang write-behind (app.cart.store=memory, mac dinh "db" = tat).
+ *
+ * Gio hang dang dung nam trong bo nho theo cartId; moi thay doi chi sua bo nho va
+ * ghi 1 dong vao journal (gia tri tuyet doi nen replay bao nhieu lan cung dung).
+ * Cac gio "dirty" duoc flush xuong MySQL theo chu ky bang JDBC batch (nhieu lan
+ * sua 1 gio -> 1 lan ghi), va flush rieng truoc khi checkout / truoc cac thao tac
+ * di thang vao DB. Luc startup replay journal con lai roi flush.
+ *
+ * Gioi han so gio: sau moi lan flush, gio sach idle lau hoac vuot max-carts bi bo
+ * khoi bo nho (doc lai tu DB khi can).
+ */
+@Component
+// replay journal luc startup upsert cart_item: can unique key (cart_id, product_id)
+@DependsOn("cartItemUniqueKeyMigration")
+@Slf4j
+public class CartSessionStore {
+
+    private static final long IDLE_EVICT_MS = 30 * 60 * 1000L;
+    private static final int RECOMPUTE_CHUNK = 1000;
+
+    private final boolean enabled;
+    private final int maxCarts;
+    private final CartRepository cartRepo;
+    private final CartItemRepository cartItemRepo;
+    private final CartItemBatchRepository cartItemBatchRepo;
+    private final ProductRepository productRepo;
+    private final ProductCache productCache;
+    private final TransactionTemplate transactionTemplate;
+    private final CartJournal journal;
+
+    private final Map<Long, CartSession> sessions = new ConcurrentHashMap<>();
+    // cartItemId (id that, hoac id tam < 0 cho dong chua flush) -> cartId
+    private final Map<Long, Long> itemToCart = new ConcurrentHashMap<>();
+    /*
+     * id tam da tra cho client -> (cartId, productId). Giu ca sau khi flush/evict: nap lai tu
+     * DB thi dong co id that, client van goi bang id tam -> tim theo productId.
+     */
+    private final Cache<Long, TempItem> tempItems = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterAccess(Duration.ofDays(1))
+            .build();
+    // bat dau tu -(thoi diem khoi dong) de id tam khong trung voi id tam cua lan chay truoc
+    private final AtomicLong tempItemIds = new AtomicLong(-System.currentTimeMillis() * 1000);
+    // tang moi lan evict, de biet 1 lan load co chay song song voi evict khong
+    private final AtomicLong evictions = new AtomicLong();
+    private final Object flushLock = new Object();
+
+    public CartSessionStore(CartRepository cartRepo, CartItemRepository cartItemRepo,
+            CartItemBatchRepository cartItemBatchRepo, ProductRepository productRepo,
+            ProductCache productCache, TransactionTemplate transactionTemplate,
+            @Value("${app.cart.store:db}") String mode,
+            @Value("${app.cart.store-max-carts:10000}") int maxCarts,
+            @Value("${app.cart.journal-dir:cart-journal}") String journalDir) {
+        this.cartRepo = cartRepo;
+        this.cartItemRepo = cartItemRepo;
+        this.cartItemBatchRepo = cartItemBatchRepo;
+        this.productRepo = productRepo;
+        this.productCache = productCache;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = "memory".equalsIgnoreCase(mode);
+        this.maxCarts = maxCarts;
+        this.journal = enabled ? new CartJournal(Path.of(journalDir)) : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isLoaded(Long cartId) {
+        return sessions.containsKey(cartId);
+    }
+
+    public List<CartItemDTO> getItems(Long cartId) {
+        return withSession(cartId, s -> {
+            List<CartItemDTO> items = new ArrayList<>(s.lines.size());
+            s.lines.forEach((productId, line) -> findProduct(productId)
+                    .ifPresent(p -> items.add(toDTO(productId, line, p))));
+            return items;
+        });
+    }
+
+    public double getTotal(Long cartId) {
+        return withSession(cartId, s -> {
+            double total = 0;
+            for (Map.Entry<Long, Line> e : s.lines.entrySet()) {
+                Optional<ProductSnapshot> product = findProduct(e.getKey());
+                if (product.isPresent()) {
+                    total += product.get().price() * e.getValue().quantity;
+                }
+            }
+            return total;
+        });
+    }
+
+    public int getItemCount(Long cartId) {
+        return withSession(cartId, s -> s.lines.values().stream().mapToInt(line -> line.quantity).sum());
+    }
+
+    public CartItemDTO add(Long cartId, Long productId, int quantity) {
+        ProductSnapshot product = requireProduct(productId);
+        return withSession(cartId, s -> {
+            Line current = s.lines.get(productId);
+            int newQuantity = (current == null ? 0 : current.quantity) + quantity;
+            journal.append("SET " + cartId + " " + productId + " " + newQuantity);
+            return toDTO(productId, applySet(s, productId, newQuantity), product);
+        });
+    }
+
+    public CartItemDTO setQuantity(Long cartId, Long productId, int quantity) {
+        ProductSnapshot product = requireProduct(productId);
+        return withSession(cartId, s -> {
+            if (!s.lines.containsKey(productId)) {
+                throw new RuntimeException("No product found in cart: " + productId);
+            }
+            journal.append("SET " + cartId + " " + productId + " " + quantity);
+            return toDTO(productId, applySet(s, productId, quantity), product);
+        });
+    }
+
+    // cartItemId client dang giu -> cartId, de lay khoa gio truoc khi adjust
+    public Long findCartId(Long cartItemId) {
+        Long cartId = itemToCart.get(cartItemId);
+        if (cartId != null) {
+            return cartId;
+        }
+        TempItem temp = tempItems.getIfPresent(cartItemId);
+        if (temp != null) {
+            return temp.cartId();
+        }
+        return cartItemRepo.findCartIdByCartItemId(cartItemId)
+                .orElseThrow(() -> new RuntimeException("CartItem not found"));
+    }
+
+    // Cho /cart-item/increase|decrease; ket qua < 1 thi giu nguyen nhu ban DB
+    public BasicCartItemDTO adjust(Long cartId, Long cartItemId, int delta) {
+        TempItem temp = tempItems.getIfPresent(cartItemId);
+        return withSession(cartId, s -> {
+            Long productId = temp != null ? temp.productId() : findProductId(s, cartItemId);
+            Line line = productId == null ? null : s.lines.get(productId);
+            if (line == null) {
+                throw new RuntimeException("CartItem not found");
+            }
+            int newQuantity = line.quantity + delta;
+            if (newQuantity >= 1) {
+                journal.append("SET " + cartId + " " + productId + " " + newQuantity);
+                applySet(s, productId, newQuantity);
+            }
+            return new BasicCartItemDTO(productId, line.quantity);
+        });
+    }
+
+    private static Long findProductId(CartSession s, Long cartItemId) {
+        for (Map.Entry<Long, Line> e : s.lines.entrySet()) {
+            if (e.getValue().itemId == cartItemId) {
+                return e.getKey();
+            }
+        }
+        return null;
+    }
+
+    public void remove(Long cartId, Long productId) {
+        withSession(cartId, s -> {
+            if (!s.lines.containsKey(productId)) {
+                throw new RuntimeException("No products found in cart: " + productId);
+            }
+            journal.append("DEL " + cartId + " " + productId);
+            applyDelete(s, productId);
+            return null;
+        });
+    }
+
+    public void clear(Long cartId) {
+        withSession(cartId, s -> {
+            journal.append("CLR " + cartId);
+            applyClear(s);
+            return null;
+        });
+    }
+
+    // Product bi xoa: bo khoi moi gio trong bo nho, tranh flush vi pham khoa ngoai
+    public void removeProduct(Long productId) {
+        if (!enabled) {
+            return;
+        }
+        for (CartSession s : sessions.values()) {
+            synchronized (s) {
+                if (!s.evicted && s.lines.containsKey(productId)) {
+                    journal.append("DEL " + s.cartId + " " + productId);
+                    applyDelete(s, productId);
+                }
+            }
+        }
+    }
+
+    // Goi truoc checkout va truoc cac thao tac doc/ghi thang DB tren gio nay
+    public void flushAndEvict(Long cartId) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (flushLock) {
+            CartSession s = sessions.get(cartId);
+            if (s == null) {
+                return;
+            }
+            synchronized (s) {
+                if (s.dirty) {
+                    writeToDb(List.of(s.snapshot()));
+                    // entry cu cua gio nay trong journal khong con can replay
+                    journal.append("FLUSHED " + cartId);
+                }
+                evict(s);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.cart.flush-interval-ms:2000}")
+    public void flushAll() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (flushLock) {
+            // ghi sau thoi diem nay -> segment moi; moi ghi truoc do deu nam trong snapshot
+            long segment = journal.rotate();
+            List<CartSnapshot> snapshots = new ArrayList<>();
+            for (CartSession s : sessions.values()) {
+                synchronized (s) {
+                    if (!s.evicted && s.dirty) {
+                        snapshots.add(s.snapshot());
+                        s.dirty = false;
+                        s.deleted.clear();
+                    }
+                }
+            }
+            try {
+                writeToDb(snapshots);
+                journal.deleteSegmentsBefore(segment);
+            } catch (RuntimeException e) {
+                log.error("Cart store flush failed for {} carts, will retry", snapshots.size(), e);
+                restoreDirty(snapshots);
+                return;
+            }
+            evictIdle();
+        }
+    }
+
+    @PostConstruct
+    public void replayJournal() {
+        if (!enabled) {
+            return;
+        }
+        List<String> entries = journal.readSegmentsBefore(journal.currentSegment());
+        int applied = 0;
+        for (String entry : entries) {
+            try {
+                replay(entry);
+                applied++;
+            } catch (RuntimeException e) {
+                log.warn("Skip cart journal entry '{}': {}", entry, e.getMessage());
+            }
+        }
+        if (!entries.isEmpty()) {
+            log.info("Cart journal replayed: {} of {} entries", applied, entries.size());
+        }
+        flushAll();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (enabled) {
+            flushAll();
+            journal.close();
+        }
+    }
+
+    private void replay(String entry) {
+        String[] parts = entry.trim().split(" ");
+        Long cartId = Long.valueOf(parts[1]);
+        switch (parts[0]) {
+            case "SET" -> {
+                Long productId = Long.valueOf(parts[2]);
+                requireProduct(productId);
+                withSession(cartId, s -> applySet(s, productId, Integer.parseInt(parts[3])));
+            }
+            case "DEL" -> withSession(cartId, s -> {
+                applyDelete(s, Long.valueOf(parts[2]));
+                return null;
+            });
+            case "CLR" -> withSession(cartId, s -> {
+                applyClear(s);
+                return null;
+            });
+            case "FLUSHED" -> {
+                CartSession s = sessions.get(cartId);
+                if (s != null) {
+                    synchronized (s) {
+                        evict(s);
+                    }
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown cart journal entry");
+        }
+    }
+
+    private <T> T withSession(Long cartId, Function<CartSession, T> action) {
+        while (true) {
+            CartSession s = sessions.get(cartId);
+            if (s == null) {
+                s = loadSession(cartId);
+                if (s == null) {
+                    continue;
+                }
+            }
+            synchronized (s) {
+                // bi evict giua luc lay va luc khoa -> lay lai ban moi
+                if (s.evicted) {
+                    continue;
+                }
+                s.lastAccess = System.currentTimeMillis();
+                return action.apply(s);
+            }
+        }
+    }
+
+    /*
+     * Query DB ngoai map (khong giu bin cua ConcurrentHashMap trong luc doc) roi putIfAbsent.
+     * Co evict trong luc doc thi ban vua doc co the cu hon lan flush truoc evict: bo, doc lai.
+     * Giu monitor cua ban moi trong luc kiem tra de khong thread nao kip ghi vao no.
+     */
+    private CartSession loadSession(Long cartId) {
+        long stamp = evictions.get();
+        CartSession loaded = load(cartId);
+        synchronized (loaded) {
+            CartSession existing = sessions.putIfAbsent(cartId, loaded);
+            if (existing != null) {
+                return existing;
+            }
+            if (evictions.get() != stamp) {
+                loaded.evicted = true;
+                sessions.remove(cartId, loaded);
+                return null;
+            }
+            loaded.lines.values().forEach(line -> itemToCart.put(line.itemId, cartId));
+            return loaded;
+        }
+    }
+
+    private CartSession load(Long cartId) {
+        List<CartItemDTO> items = cartItemRepo.findItemDTOsByCartId(cartId);
+        if (items.isEmpty() && !cartRepo.existsById(cartId)) {
+            throw new RuntimeException("Cart not found: " + cartId);
+        }
+        CartSession s = new CartSession(cartId);
+        for (CartItemDTO item : items) {
+            s.lines.put(item.getProductId(), new Line(item.getCartItemId(), item.getQuantity()));
+        }
+        return s;
+    }
+
+    private Line applySet(CartSession s, Long productId, int quantity) {
+        Line line = s.lines.get(productId);
+        if (line == null) {
+            line = new Line(tempItemIds.decrementAndGet(), quantity);
+            s.lines.put(productId, line);
+            itemToCart.put(line.itemId, s.cartId);
+            tempItems.put(line.itemId, new TempItem(s.cartId, productId));
+        } else {
+            line.quantity = quantity;
+        }
+        s.deleted.remove(productId);
+        s.dirty = true;
+        return line;
+    }
+
+    private void applyDelete(CartSession s, Long productId) {
+        Line line = s.lines.remove(productId);
+        if (line != null) {
+            itemToCart.remove(line.itemId);
+            s.deleted.add(productId);
+            s.dirty = true;
+        }
+    }
+
+    private void applyClear(CartSession s) {
+        new ArrayList<>(s.lines.keySet()).forEach(productId -> applyDelete(s, productId));
+    }
+
+    private void evict(CartSession s) {
+        s.evicted = true;
+        // tang truoc khi bo khoi map (xem loadSession)
+        evictions.incrementAndGet();
+        sessions.remove(s.cartId, s);
+        s.lines.values().forEach(line -> itemToCart.remove(line.itemId));
+    }
+
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        int excess = sessions.size() - maxCarts;
+        List<CartSession> candidates = new ArrayList<>(sessions.values());
+        candidates.sort(Comparator.comparingLong(s -> s.lastAccess));
+        for (CartSession s : candidates) {
+            if (excess <= 0 && now - s.lastAccess < IDLE_EVICT_MS) {
+                break;
+            }
+            synchronized (s) {
+                if (!s.evicted && !s.dirty) {
+                    evict(s);
+                    excess--;
+                }
+            }
+        }
+    }
+
+    private void restoreDirty(List<CartSnapshot> snapshots) {
+        for (CartSnapshot snapshot : snapshots) {
+            CartSession s = sessions.get(snapshot.cartId());
+            if (s == null) {
+                continue;
+            }
+            synchronized (s) {
+                s.dirty = true;
+                snapshot.deleted().forEach(productId -> {
+                    if (!s.lines.containsKey(productId)) {
+                        s.deleted.add(productId);
+                    }
+                });
+            }
+        }
+    }
+
+    private void writeToDb(List<CartSnapshot> snapshots) {
+        if (snapshots.isEmpty()) {
+            return;
+        }
+        List<long[]> upserts = new ArrayList<>();
+        List<long[]> deletes = new ArrayList<>();
+        List<Long> cartIds = new ArrayList<>(snapshots.size());
+        for (CartSnapshot snapshot : snapshots) {
+            cartIds.add(snapshot.cartId());
+            snapshot.lines().forEach((productId, quantity) -> upserts.add(
+                    new long[] { snapshot.cartId(), productId, quantity }));
+            snapshot.deleted().forEach(productId -> deletes.add(new long[] { snapshot.cartId(), productId }));
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            cartItemBatchRepo.deleteLines(deletes);
+            cartItemBatchRepo.upsertLines(upserts);
+            for (int i = 0; i < cartIds.size(); i += RECOMPUTE_CHUNK) {
+                cartRepo.recomputeTotals(cartIds.subList(i, Math.min(i + RECOMPUTE_CHUNK, cartIds.size())));
+            }
+        });
+    }
+
+    private Optional<ProductSnapshot> findProduct(Long productId) {
+        return productCache.getProduct(productId, productRepo::findByProductId);
+    }
+
+    private ProductSnapshot requireProduct(Long productId) {
+        return findProduct(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found: " + productId));
+    }
+
+    private static CartItemDTO toDTO(Long productId, Line line, ProductSnapshot product) {
+        return new CartItemDTO(line.itemId, productId, product.name(), product.price(), line.quantity);
+    }
+
+    private static final class Line {
+        final long itemId;
+        int quantity;
+
+        Line(long itemId, int quantity) {
+            this.itemId = itemId;
+            this.quantity = quantity;
+        }
+    }
+
+    private static final class CartSession {
+        final Long cartId;
+        // productId -> dong, giu thu tu them vao
+        final Map<Long, Line> lines = new LinkedHashMap<>();
+        // productId da xoa ke tu lan flush truoc
+        final Set<Long> deleted = new HashSet<>();
+        volatile boolean dirty;
+        volatile boolean evicted;
+        volatile long lastAccess = System.currentTimeMillis();
+
+        CartSession(Long cartId) {
+            this.cartId = cartId;
+        }
+
+        CartSnapshot snapshot() {
+            Map<Long, Integer> copy = new HashMap<>();
+            lines.forEach((productId, line) -> copy.put(productId, line.quantity));
+            return new CartSnapshot(cartId, copy, new HashSet<>(deleted));
+        }
+    }
+
+    private record TempItem(Long cartId, Long productId) {
+    }
+
+    private record CartSnapshot(Long cartId, Map<Long, Integer> lines, Set<Long> deleted) {
+    }
+}
@@ -0,0 +1,70 @@
+package com.BackEnd.service;
+
+import com.BackEnd.repository.CartRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/*
+ * cart.total_price / item_count duoc cong tru theo tung thay doi gio hang.
+ * Job nay quet dinh ky theo khoang cart_id, tim gio ACTIVE co tong lech voi cart_item
+ * (ghi ngoai CartService, doi gia san pham, loi giua chung...) va tinh lai.
+ * Chay 1 lan ngay khi app san sang (gio co tu truoc khi co 2 cot nay dang de 0),
+ * khong chan startup. Moi gio tinh lai duoi khoa cua gio (CartLockManager) nen khong
+ * chen giua cac delta dang ghi.
+ */
+@Component
+@Slf4j
+public class CartTotalsReconciler {
+
+    private final CartRepository cartRepo;
+    private final CartLockManager cartLocks;
+    private final CartSessionStore sessionStore;
+    private final int batchSize;
+    private final boolean reconcileOnStartup;
+
+    public CartTotalsReconciler(CartRepository cartRepo, CartLockManager cartLocks, CartSessionStore sessionStore,
+            @Value("${app.cart.reconcile-batch-size:1000}") int batchSize,
+            @Value("${app.cart.reconcile-on-startup:true}") boolean reconcileOnStartup) {
+        this.cartRepo = cartRepo;
+        this.cartLocks = cartLocks;
+        this.sessionStore = sessionStore;
+        this.batchSize = batchSize;
+        this.reconcileOnStartup = reconcileOnStartup;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (reconcileOnStartup) {
+            reconcile();
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.cart.reconcile-interval-ms:600000}",
+            fixedDelayString = "${app.cart.reconcile-interval-ms:600000}")
+    public void reconcile() {
+        Long maxId = cartRepo.findMaxCartId();
+        if (maxId == null) {
+            return;
+        }
+        int repaired = 0;
+        for (long afterId = 0; afterId < maxId; afterId += batchSize) {
+            List<Long> drifted = cartRepo.findCartIdsWithDriftedTotals(afterId, afterId + batchSize);
+            for (Long cartId : drifted) {
+                // gio dang nam trong bo nho (write-behind): tong DB se dung sau lan flush
+                if (sessionStore.isLoaded(cartId)) {
+                    continue;
+                }
+                repaired += cartLocks.withLock(cartId, () -> cartRepo.recomputeTotals(List.of(cartId)));
+            }
+        }
+        if (repaired > 0) {
+            log.warn("Cart totals reconciled: {} carts had drifted", repaired);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.BackEnd.service;
+
+import com.BackEnd.repository.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/*
+ * Sinh orderCode kieu Snowflake, khong khoa, khong trung trong 1 node.
+ * PayOS chi nhan orderCode <= 2^53 - 1 nen gom 53 bit:
+ *   41 bit ms tinh tu EPOCH (~69 nam) | 5 bit node (0..31) | 7 bit sequence (128 ma/ms)
+ * State (ms << 7 | seq) tang don dieu qua CAS. Het sequence trong 1 ms hoac dong ho
+ * lui thi muon ms tiep theo thay vi cho, dong ho that se duoi kip sau do.
+ * Luc khoi dong state bat dau sau orderCode lon nhat trong DB, nen restart khi dong ho
+ * lui (hoac sau mot dot muon ms) khong phat lai ma da cap.
+ * Nhieu instance phai co app.order.node-id khac nhau.
+ */
+@Component
+@Slf4j
+public class OrderCodeGenerator {
+
+    // 2025-01-01T00:00:00Z
+    static final long EPOCH = 1735689600000L;
+    static final int NODE_BITS = 5;
+    static final int SEQUENCE_BITS = 7;
+    static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    static final long MAX_CODE = (1L << 53) - 1;
+
+    private final long node;
+    private final LongSupplier clock;
+    private final AtomicLong state = new AtomicLong();
+    private volatile boolean clockBehind;
+
+    @Autowired
+    public OrderCodeGenerator(@Value("${app.order.node-id:0}") long node, OrderRepository orderRepo) {
+        this(node, System::currentTimeMillis);
+        Long maxCode = orderRepo.findMaxOrderCode();
+        if (maxCode != null) {
+            seed(maxCode);
+        }
+    }
+
+    OrderCodeGenerator(long node, LongSupplier clock) {
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalArgumentException("app.order.node-id must be in 0.." + MAX_NODE + ": " + node);
+        }
+        this.node = node;
+        this.clock = clock;
+    }
+
+    // moi ma sinh ra sau do lon hon maxCode, bat ke node nao da cap maxCode
+    void seed(long maxCode) {
+        if (maxCode <= 0 || maxCode > MAX_CODE) {
+            return;
+        }
+        long millis = maxCode >>> (NODE_BITS + SEQUENCE_BITS);
+        // sequence day: lan next() dau tien chi dung ms nay neu dong ho da vuot qua no
+        state.accumulateAndGet((millis << SEQUENCE_BITS) | SEQUENCE_MASK, Math::max);
+        long ahead = millis - (clock.getAsLong() - EPOCH);
+        if (ahead > 0) {
+            log.warn("Latest order code is {} ms ahead of the clock, new codes continue after it", ahead);
+        }
+    }
+
+    public long next() {
+        while (true) {
+            long prev = state.get();
+            long prevMillis = prev >>> SEQUENCE_BITS;
+            long now = clock.getAsLong() - EPOCH;
+            long next;
+            if (now > prevMillis) {
+                next = now << SEQUENCE_BITS;
+            } else if ((prev & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                next = prev + 1;
+            } else {
+                // het sequence (hoac dong ho dang lui): sang ms ke tiep
+                next = (prevMillis + 1) << SEQUENCE_BITS;
+            }
+            if (state.compareAndSet(prev, next)) {
+                checkClock(now, prevMillis);
+                return compose(next);
+            }
+        }
+    }
+
+    // log 1 lan moi khi ma di truoc dong ho qua 1s (dong ho lui hoac > 128 ma/ms keo dai)
+    private void checkClock(long now, long lastMillis) {
+        if (now >= lastMillis) {
+            clockBehind = false;
+        } else if (lastMillis - now > 1000 && !clockBehind) {
+            clockBehind = true;
+            log.warn("Order codes are {} ms ahead of the clock (clock moved back or sustained burst)",
+                    lastMillis - now);
+        }
+    }
+
+    private long compose(long stateValue) {
+        long millis = stateValue >>> SEQUENCE_BITS;
+        if (millis >= 1L << (53 - NODE_BITS - SEQUENCE_BITS)) {
+            throw new IllegalStateException("Order code timestamp overflow");
+        }
+        return (millis << (NODE_BITS + SEQUENCE_BITS)) | (node << SEQUENCE_BITS) | (stateValue & SEQUENCE_MASK);
+    }
+}
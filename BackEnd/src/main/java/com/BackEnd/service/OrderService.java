@@ -3,8 +3,10 @@ package com.BackEnd.service;
 import com.BackEnd.dto.*;
 import com.BackEnd.model.*;
 import com.BackEnd.repository.*;
+import com.BackEnd.utils.CursorCodec;
 import com.BackEnd.utils.DTOConverter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -15,50 +17,90 @@ import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class OrderService {
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+
     private final CartService cartService;
     private final UserService userService;
     private final PaymentService paymentService;
     private final OrderRepository orderRepo;
     private final OrderDetailRepository orderDetailRepo;
     private final CartRepository cartRepository;
-
-    public CreateOrderResponse createOrder(Long cartId) throws Exception {
-        // 1. Đánh dấu giỏ hàng đã SUBMITTED
-        cartService.changeCartStatus(cartId, Cart.CartStatus.SUBMITTED);
+    private final OrderCodeGenerator orderCodeGenerator;
+
+    /*
+     * Phan DB chay tren thread cua request; goi PayOS chay tren pool rieng cua
+     * PaymentService, future hoan thanh khi co QR. PayOS loi / qua timeout / pool day:
+     * huy link PayOS (neu da kip tao), huy order va go cart_id, tra gio ve ACTIVE de
+     * user checkout lai.
+     */
+    public CompletableFuture<CreateOrderResponse> createOrder(Long cartId) {
+        // 0. Gio dang nam trong bo nho (write-behind) -> ghi xuong DB truoc
+        cartService.flushCart(cartId);
         var cart = cartRepository.findById(cartId)
                 .orElseThrow(() -> new RuntimeException("Cart không tồn tại: " + cartId));
 
-        // 2. Lấy user và tổng tiền
+        // 1. Lấy user và tổng tiền
         User user = cartService.getUserByCartId(cartId);
         double amount = cartService.getCartTotalAmount(cartId);
         if (amount <= 0) {
             throw new IllegalArgumentException("Giỏ rỗng hoặc tổng tiền <= 0");
         }
 
-        // 3. Sinh orderCode & tạo QR Base64
-        Long orderCode = System.currentTimeMillis() + new Random().nextInt(9999);
-        PaymentRequest payReq = new PaymentRequest(orderCode, (int) amount, "AutoParts Checkout");
-        String qrBase64 = paymentService.createOrderInPayOS(payReq);
+        // 2. Đánh dấu giỏ hàng đã SUBMITTED
+        cartService.changeCartStatus(cartId, Cart.CartStatus.SUBMITTED);
 
-        // 4. Lưu Order vào DB
+        // 3. Lưu Order (chưa có QR) vào DB
+        Long orderCode = orderCodeGenerator.next();
         Order order = new Order();
         order.setCart(cart);
         order.setUser(user);
         order.setOrderCode(orderCode);
-        order.setQrCodeToCheckout(qrBase64);
         order.setTotalPrice(amount);
         order.setStatus(Order.OrderStatus.PENDING);
         order.setCreatedAt(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
-        orderRepo.save(order);
+        try {
+            orderRepo.save(order);
+        } catch (RuntimeException e) {
+            cartService.changeCartStatus(cartId, Cart.CartStatus.ACTIVE);
+            throw e;
+        }
+
+        // 4. Tạo link PayOS, có QR thì ghi vào order và trả về
+        PaymentRequest payReq = new PaymentRequest(orderCode, (int) amount, "AutoParts Checkout");
+        return paymentService.createOrderInPayOSAsync(payReq)
+                .thenApply(qrBase64 -> {
+                    orderRepo.updateQrCode(orderCode, qrBase64);
+                    return new CreateOrderResponse(orderCode, qrBase64, amount);
+                })
+                // khong chay tren thread hen gio cua orTimeout hay common pool
+                .whenCompleteAsync((response, error) -> {
+                    if (error != null) {
+                        cancelFailedCheckout(orderCode, cartId, error);
+                    }
+                }, paymentService.compensationExecutor());
+    }
 
-        // 5. Trả về DTO chứa mã và QR
-        return new CreateOrderResponse(orderCode, qrBase64, amount);
+    private void cancelFailedCheckout(Long orderCode, Long cartId, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        // pool day: task chua chay, khong co link nao o PayOS
+        if (!(cause instanceof RejectedExecutionException)) {
+            paymentService.cancelPaymentLinkQuietly(orderCode, "Checkout failed");
+        }
+        try {
+            orderRepo.cancelAndDetachCart(orderCode, Order.OrderStatus.CANCELLED);
+        } catch (RuntimeException e) {
+            System.err.println("Lỗi khi hủy đơn hàng " + orderCode + ": " + e.getMessage());
+        }
+        cartService.changeCartStatus(cartId, Cart.CartStatus.ACTIVE);
     }
 
     public Boolean checkIfUserHasPendingOrder(String userName) {
@@ -75,7 +117,7 @@ public class OrderService {
     @Transactional
     public List<OrderDetailDTO> getOrderDetailListInPendingOrder(String userName) {
         User user = userService.getUserByName(userName);
-        List<Order> orderList = orderRepo.findByUserAndStatus(user, Order.OrderStatus.PENDING);
+        List<Order> orderList = orderRepo.findWithDetailsByUserAndStatus(user, Order.OrderStatus.PENDING);
         List<OrderDetail> orderDetailList = new ArrayList<>();
         orderList.stream().findFirst().ifPresent(order -> {
             orderDetailList.addAll(order.getOrderDetails());
@@ -99,21 +141,40 @@ public class OrderService {
 
     @Transactional
     public List<OrderDTO> getOrdersByStatus(Order.OrderStatus status) {
-        List<Order> orders = orderRepo.findByStatus(status);
+        List<Order> orders = orderRepo.findWithDetailsByStatus(status);
         return orders.stream().map(
                 order -> DTOConverter.toOrderDTO(order)).collect(Collectors.toList());
     }
 
     @Transactional
     public List<OrderDTO> getAllOrders() {
-        List<Order> orders = orderRepo.findAll();
+        List<Order> orders = orderRepo.findAllWithDetails();
         return orders.stream().map(order -> DTOConverter.toOrderDTO(order)).collect(Collectors.toList());
     }
 
+    // Danh sach don hang cho admin: 1 cau projection moi trang, khong nap user/cart/detail/payment
+    public CursorPage<OrderSummaryDTO> searchOrders(OrderSearchFilter filter) {
+        Integer size = filter.getSize();
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        String cursor = filter.getCursor();
+        Long beforeId = cursor == null || cursor.isBlank() ? Long.MAX_VALUE : CursorCodec.decode(cursor).id();
+        String userName = filter.getUserName() == null || filter.getUserName().isBlank() ? null
+                : filter.getUserName();
+
+        // lay them 1 dong de biet con trang sau hay khong
+        List<OrderSummaryDTO> rows = orderRepo.searchPage(beforeId, filter.getStatus(), userName,
+                filter.getFrom(), filter.getTo(), filter.getMinAmount(), filter.getMaxAmount(),
+                PageRequest.of(0, pageSize + 1));
+        boolean hasMore = rows.size() > pageSize;
+        List<OrderSummaryDTO> items = new ArrayList<>(hasMore ? rows.subList(0, pageSize) : rows);
+        String nextCursor = hasMore ? CursorCodec.encode(items.get(items.size() - 1).getOrderId(), "") : null;
+        return new CursorPage<>(items, nextCursor, hasMore);
+    }
+
     @Transactional
     public List<OrderDTO> getAllOrdersOfUserByStatusAndName(String userName, Order.OrderStatus status) {
         User user = userService.getUserByName(userName);
-        List<Order> orderList = orderRepo.findByUserAndStatus(user, status);
+        List<Order> orderList = orderRepo.findWithDetailsByUserAndStatus(user, status);
         return orderList.stream().map(order -> {
             return DTOConverter.toOrderDTO(order);
         }).collect(Collectors.toList());
@@ -138,6 +199,7 @@ public class OrderService {
                 if (cart != null) {
                     cart.setStatus(Cart.CartStatus.COMPLETED);
                     cartRepository.save(cart);
+                    cartService.evictActiveCart(cart.getCartId());
                 }
 
                 System.out.println("Order " + orderCode + " has been successfully processed as PAID");
@@ -153,7 +215,7 @@ public class OrderService {
     // Phương thức để lấy thông tin đơn hàng theo orderCode
     @Transactional(readOnly = true)
     public OrderDTO getOrderByOrderCode(Long orderCode) {
-        Order order = orderRepo.findByOrderCode(orderCode);
+        Order order = orderRepo.findWithDetailsByOrderCode(orderCode);
         if (order == null) {
             throw new RuntimeException("Order not found with orderCode: " + orderCode);
         }
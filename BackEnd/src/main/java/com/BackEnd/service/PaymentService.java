@@ -2,28 +2,152 @@ package com.BackEnd.service;
 
 import com.BackEnd.dto.PaymentRequest;
 import com.BackEnd.utils.SignatureUtil;
-import com.BackEnd.dto.CreateOrderResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import vn.payos.PayOS;
-import vn.payos.type.CheckoutResponseData;
-import vn.payos.type.PaymentData;
-import vn.payos.type.ItemData;
-import vn.payos.type.Webhook;
 
-import java.util.ArrayList;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
 import java.util.Collections;
-import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
+@Slf4j
 public class PaymentService {
-    private final PayOS payOS;
+    /*
+     * Goi PayOS tren pool rieng, gioi han so luong (khong giu thread Tomcat khi PayOS cham).
+     * Pool + hang doi day -> tu choi ngay thay vi xep hang vo han.
+     */
+    private final ThreadPoolExecutor payOSExecutor;
+    // buoc bu tru (huy link, huy order) khi tao link loi; khong tu choi, khong chung pool PayOS
+    private final ExecutorService compensationExecutor;
+    private final long timeoutMillis;
+    /*
+     * SDK PayOS khong cho dat timeout cho HTTP client cua no, nen tao/huy link goi thang
+     * REST API: connect + request timeout that, thread pool duoc tra lai khi het gio.
+     */
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+    private final String clientId;
+    private final String apiKey;
+    private final String checksumKey;
 
     public PaymentService(
             @Value("${PAYOS_CLIENT_ID}") String clientId,
             @Value("${PAYOS_API_KEY}") String apiKey,
-            @Value("${PAYOS_CHECKSUM_KEY}") String checksumKey) {
-        this.payOS = new PayOS(clientId, apiKey, checksumKey);
+            @Value("${PAYOS_CHECKSUM_KEY}") String checksumKey,
+            @Value("${app.payos.max-concurrency:32}") int maxConcurrency,
+            @Value("${app.payos.queue-capacity:200}") int queueCapacity,
+            @Value("${app.payos.timeout-ms:10000}") long timeoutMillis,
+            @Value("${app.payos.base-url:https://api-merchant.payos.vn}") String baseUrl) {
+        this.clientId = clientId;
+        this.apiKey = apiKey;
+        this.checksumKey = checksumKey;
+        this.baseUrl = baseUrl;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(timeoutMillis))
+                .build();
+        AtomicInteger threadNo = new AtomicInteger();
+        this.payOSExecutor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "payos-" + threadNo.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.payOSExecutor.allowCoreThreadTimeOut(true);
+        AtomicInteger compensationNo = new AtomicInteger();
+        this.compensationExecutor = Executors.newFixedThreadPool(2, r -> {
+            Thread t = new Thread(r, "payos-compensate-" + compensationNo.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /*
+     * Nhu createOrderInPayOS nhung chay tren payOSExecutor. Future loi voi
+     * RejectedExecutionException khi pool day, TimeoutException khi qua timeout-ms
+     * (tinh ca thoi gian xep hang). Het gio thi task bi cancel: con trong hang doi thi
+     * khong chay nua, dang goi HTTP thi bi interrupt.
+     */
+    public CompletableFuture<String> createOrderInPayOSAsync(PaymentRequest paymentRequest) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        Future<?> task;
+        try {
+            task = payOSExecutor.submit(() -> {
+                try {
+                    result.complete(createOrderInPayOS(paymentRequest));
+                } catch (HttpTimeoutException e) {
+                    result.completeExceptionally(new TimeoutException("PayOS: " + e.getMessage()));
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                } catch (Exception e) {
+                    result.completeExceptionally(
+                            new RuntimeException("PayOS createPaymentLink failed: " + e.getMessage(), e));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // submit() nem ngay tren thread goi, dua vao future de ben goi xu ly chung 1 cho
+            return CompletableFuture.failedFuture(e);
+        }
+        result.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .whenComplete((qr, error) -> {
+                    if (error != null) {
+                        task.cancel(true);
+                    }
+                });
+        return result;
+    }
+
+    public Executor compensationExecutor() {
+        return compensationExecutor;
+    }
+
+    /*
+     * Huy link PayOS cua orderCode, bo qua loi (link co the chua tung duoc tao).
+     * Goi khi tao link that bai / het gio: request co the da toi PayOS truoc khi bi huy.
+     */
+    public void cancelPaymentLinkQuietly(Long orderCode, String reason) {
+        try {
+            String body = objectMapper.writeValueAsString(Map.of("cancellationReason", reason));
+            HttpResponse<String> response = httpClient.send(
+                    payOSRequest("/v2/payment-requests/" + orderCode + "/cancel", body),
+                    HttpResponse.BodyHandlers.ofString());
+            JsonNode json = objectMapper.readTree(response.body());
+            if (!"00".equals(json.path("code").asText())) {
+                log.debug("PayOS cancel for order {} ignored: {}", orderCode, json.path("desc").asText());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("PayOS cancel for order {} failed: {}", orderCode, e.toString());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        payOSExecutor.shutdown();
+        compensationExecutor.shutdown();
     }
 
     public String createOrderInPayOS(PaymentRequest paymentRequest) throws Exception {
@@ -36,25 +160,38 @@ public class PaymentService {
         }
 
         // 2. Chuẩn bị danh sách items
-        ItemData item = ItemData.builder()
-                .name("AutoParts Order #" + paymentRequest.getOrderCode())
-                .price(paymentRequest.getAmount())
-                .quantity(1)
-                .build();
-        PaymentData paymentData = PaymentData.builder()
-                .orderCode(paymentRequest.getOrderCode())
-                .amount(paymentRequest.getAmount())
-                .description(paymentRequest.getDescription())
-                .items(Collections.singletonList(item))
-                .cancelUrl("http://localhost:3000/cancel")
-                .returnUrl("http://localhost:3000/success")
-                .build();
+        String cancelUrl = "http://localhost:3000/cancel";
+        String returnUrl = "http://localhost:3000/success";
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("name", "AutoParts Order #" + paymentRequest.getOrderCode());
+        item.put("quantity", 1);
+        item.put("price", paymentRequest.getAmount());
+        Map<String, Object> paymentData = new LinkedHashMap<>();
+        paymentData.put("orderCode", paymentRequest.getOrderCode());
+        paymentData.put("amount", paymentRequest.getAmount());
+        paymentData.put("description", paymentRequest.getDescription());
+        paymentData.put("items", Collections.singletonList(item));
+        paymentData.put("cancelUrl", cancelUrl);
+        paymentData.put("returnUrl", returnUrl);
+        // chu ky giong SDK: amount, cancelUrl, description, orderCode, returnUrl theo thu tu chu cai
+        paymentData.put("signature", SignatureUtil.createSignature(Map.of(
+                "amount", String.valueOf(paymentRequest.getAmount()),
+                "cancelUrl", cancelUrl,
+                "description", paymentRequest.getDescription(),
+                "orderCode", String.valueOf(paymentRequest.getOrderCode()),
+                "returnUrl", returnUrl), checksumKey));
 
-        // 3. Tạo link trên PayOS
-        CheckoutResponseData response = payOS.createPaymentLink(paymentData);
+        // 3. Tạo link trên PayOS (HttpTimeoutException khi qua timeout-ms)
+        HttpResponse<String> response = httpClient.send(
+                payOSRequest("/v2/payment-requests", objectMapper.writeValueAsString(paymentData)),
+                HttpResponse.BodyHandlers.ofString());
+        JsonNode json = objectMapper.readTree(response.body());
+        if (!"00".equals(json.path("code").asText())) {
+            throw new RuntimeException("PayOS: " + json.path("desc").asText("HTTP " + response.statusCode()));
+        }
 
         // 4. Lấy chuỗi Base64 của QR
-        String qrBase64 = response.getQrCode(); // hoặc getQrCodeImage() tùy SDK
+        String qrBase64 = json.path("data").path("qrCode").asText(null);
         if (qrBase64 == null) {
             throw new RuntimeException("Không nhận được QR code từ PayOS");
         }
@@ -62,4 +199,14 @@ public class PaymentService {
         return qrBase64;
     }
 
+    private HttpRequest payOSRequest(String path, String jsonBody) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofMillis(timeoutMillis))
+                .header("x-client-id", clientId)
+                .header("x-api-key", apiKey)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
+                .build();
+    }
+
 }
\ No newline at end of file
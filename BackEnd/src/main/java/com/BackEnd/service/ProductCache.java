@@ -0,0 +1,105 @@
+package com.BackEnd.service;
+
+import com.BackEnd.dto.CacheStatsDTO;
+import com.BackEnd.dto.ProductSnapshot;
+import com.BackEnd.model.Product;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/*
+ * Cache in-process cho cac lan doc product theo id (catalog it thay doi).
+ * Gioi han theo so luong + TTL; ProductService goi invalidate() sau moi lan ghi.
+ * Luu ProductSnapshot (bat bien) chu khong luu entity: 1 instance tra cho moi caller.
+ */
+@Component
+public class ProductCache {
+
+    private final Cache<Long, Optional<ProductSnapshot>> products;
+    private final Cache<Long, List<String>> imageUrls;
+
+    public ProductCache(@Value("${app.product-cache.max-size:10000}") long maxSize,
+            @Value("${app.product-cache.ttl-seconds:600}") long ttlSeconds) {
+        this.products = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.imageUrls = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    // Optional.empty() cung duoc cache de id khong ton tai khong xuong DB lien tuc
+    public Optional<ProductSnapshot> getProduct(Long productId, Function<Long, Optional<Product>> loader) {
+        return products.get(productId, id -> loader.apply(id).map(ProductSnapshot::from));
+    }
+
+    // loader tra ve null thi khong cache; list trong cache la bat bien
+    public List<String> getImageUrls(Long productId, Function<Long, List<String>> loader) {
+        return imageUrls.get(productId, id -> {
+            List<String> urls = loader.apply(id);
+            return urls == null ? null : Collections.unmodifiableList(new ArrayList<>(urls));
+        });
+    }
+
+    public List<String> getCachedImageUrls(Long productId) {
+        return imageUrls.getIfPresent(productId);
+    }
+
+    public void putImageUrls(Long productId, List<String> urls) {
+        imageUrls.put(productId, Collections.unmodifiableList(new ArrayList<>(urls)));
+    }
+
+    public void invalidate(Long productId) {
+        if (productId == null) {
+            return;
+        }
+        products.invalidate(productId);
+        imageUrls.invalidate(productId);
+    }
+
+    /*
+     * Dung ben trong transaction: bo ngay va bo lai sau commit, vi request doc dong thoi
+     * co the nap lai ban cu (chua commit) vao cache trong khoang giua.
+     */
+    public void invalidateAfterCommit(Long productId) {
+        invalidate(productId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(productId);
+                }
+            });
+        }
+    }
+
+    public void invalidateAll() {
+        products.invalidateAll();
+        imageUrls.invalidateAll();
+    }
+
+    public List<CacheStatsDTO> getStats() {
+        return List.of(toStats("products", products), toStats("imageUrls", imageUrls));
+    }
+
+    private CacheStatsDTO toStats(String name, Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        return new CacheStatsDTO(name, cache.estimatedSize(), stats.hitCount(), stats.missCount(),
+                stats.evictionCount(), stats.hitRate());
+    }
+}
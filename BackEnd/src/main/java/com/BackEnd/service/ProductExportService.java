@@ -0,0 +1,52 @@
+package com.BackEnd.service;
+
+import com.BackEnd.dto.ProductExportDTO;
+import com.BackEnd.dto.ProductExportView;
+import com.BackEnd.repository.ProductRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+@Slf4j
+public class ProductExportService {
+
+    private static final int FLUSH_EVERY = 500;
+
+    private final ProductRepository productRepo;
+    private final ObjectWriter writer;
+
+    public ProductExportService(ProductRepository productRepo, ObjectMapper objectMapper) {
+        this.productRepo = productRepo;
+        this.writer = objectMapper.writerFor(ProductExportDTO.class);
+    }
+
+    /*
+     * Ghi catalog ra out dang NDJSON (moi dong 1 product). Doc bang stream tu DB
+     * nen bo nho khong phu thuoc kich thuoc catalog.
+     */
+    @Transactional(readOnly = true)
+    public long exportNdjson(OutputStream out) throws IOException {
+        long count = 0;
+        try (Stream<ProductExportView> rows = productRepo.streamCatalogForExport()) {
+            Iterator<ProductExportView> it = rows.iterator();
+            while (it.hasNext()) {
+                out.write(writer.writeValueAsBytes(ProductExportDTO.from(it.next())));
+                out.write('\n');
+                if (++count % FLUSH_EVERY == 0) {
+                    out.flush();
+                }
+            }
+        }
+        out.flush();
+        log.info("Exported {} products as NDJSON", count);
+        return count;
+    }
+}
@@ -0,0 +1,404 @@
+package com.BackEnd.service;
+
+import com.BackEnd.dto.ProductImportError;
+import com.BackEnd.dto.ProductImportRow;
+import com.BackEnd.dto.ProductImportStatusDTO;
+import com.BackEnd.repository.ProductBatchRepository;
+import com.BackEnd.search.CatalogIndexer;
+import com.BackEnd.search.IndexedProduct;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Import product hang loat tu CSV hoac NDJSON. File upload duoc luu tam ra dia,
+ * sau do 1 worker doc stream tung dong, validate va ghi theo chunk
+ * (moi chunk 1 transaction, JDBC batch). Tien do xem qua getStatus(jobId).
+ */
+@Service
+@Slf4j
+public class ProductImportService {
+
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_NDJSON = "ndjson";
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final ProductBatchRepository productBatchRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final CatalogIndexer catalogIndexer;
+    private final ProductCache productCache;
+    private final ObjectReader ndjsonReader;
+    private final int chunkSize;
+    private final Duration jobTtl;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "product-import");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    public ProductImportService(ProductBatchRepository productBatchRepo,
+            TransactionTemplate transactionTemplate,
+            CatalogIndexer catalogIndexer,
+            ProductCache productCache,
+            ObjectMapper objectMapper,
+            @Value("${app.product-import.chunk-size:1000}") int chunkSize,
+            @Value("${app.product-import.job-ttl-minutes:60}") long jobTtlMinutes,
+            @Value("${spring.datasource.url:}") String datasourceUrl) {
+        this.productBatchRepo = productBatchRepo;
+        this.transactionTemplate = transactionTemplate;
+        this.catalogIndexer = catalogIndexer;
+        this.productCache = productCache;
+        this.ndjsonReader = objectMapper.readerFor(ProductImportRow.class);
+        this.chunkSize = chunkSize;
+        this.jobTtl = Duration.ofMinutes(jobTtlMinutes);
+        if (datasourceUrl.startsWith("jdbc:mysql") && !datasourceUrl.contains("rewriteBatchedStatements=true")) {
+            // khong co thi Connector/J gui tung INSERT mot, batch khong nhanh hon
+            log.warn("spring.datasource.url has no rewriteBatchedStatements=true: product import runs row by row");
+        }
+    }
+
+    public ProductImportStatusDTO startImport(String format, InputStream body) throws IOException {
+        if (!FORMAT_CSV.equals(format) && !FORMAT_NDJSON.equals(format)) {
+            throw new IllegalArgumentException("Unsupported import format: " + format);
+        }
+        Path file = Files.createTempFile("product-import-", "." + format);
+        Files.copy(body, file, StandardCopyOption.REPLACE_EXISTING);
+
+        ImportJob job = new ImportJob(UUID.randomUUID().toString());
+        jobs.put(job.id, job);
+        worker.submit(() -> run(job, format, file));
+        return job.toDTO();
+    }
+
+    public Optional<ProductImportStatusDTO> getStatus(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(ImportJob::toDTO);
+    }
+
+    // Job da xong chi giu trang thai trong job-ttl-minutes, job dang chay khong bi xoa
+    @Scheduled(fixedDelayString = "${app.product-import.job-purge-interval-ms:600000}")
+    public void purgeFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(jobTtl);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    private void run(ImportJob job, String format, Path file) {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            List<ProductImportRow> chunk = new ArrayList<>(chunkSize);
+            List<Long> chunkLines = new ArrayList<>(chunkSize);
+            RowSource source = FORMAT_CSV.equals(format) ? new CsvRowSource(reader) : new NdjsonRowSource(reader);
+
+            while (true) {
+                ParsedRow parsed;
+                try {
+                    parsed = source.next();
+                } catch (IllegalArgumentException e) {
+                    job.processed.incrementAndGet();
+                    job.fail(source.lineNumber(), e.getMessage());
+                    continue;
+                }
+                if (parsed == null) {
+                    break;
+                }
+                job.processed.incrementAndGet();
+                String error = validate(parsed.row());
+                if (error != null) {
+                    job.fail(parsed.line(), error);
+                    continue;
+                }
+                chunk.add(parsed.row());
+                chunkLines.add(parsed.line());
+                if (chunk.size() >= chunkSize) {
+                    writeChunk(job, chunk, chunkLines);
+                    chunk.clear();
+                    chunkLines.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                writeChunk(job, chunk, chunkLines);
+            }
+            job.status = "COMPLETED";
+        } catch (Exception e) {
+            log.error("Product import {} failed", job.id, e);
+            job.status = "FAILED";
+            job.fail(0, "Import aborted: " + e.getMessage());
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Could not delete import file {}", file, e);
+            }
+            log.info("Product import {} {}: {} imported, {} failed", job.id, job.status,
+                    job.imported.get(), job.failed.get());
+        }
+    }
+
+    private void writeChunk(ImportJob job, List<ProductImportRow> chunk, List<Long> lines) {
+        List<Long> ids;
+        try {
+            ids = transactionTemplate.execute(status -> productBatchRepo.insertProducts(chunk));
+        } catch (Exception e) {
+            // ca chunk bi rollback
+            log.warn("Product import {}: chunk starting at line {} rolled back", job.id, lines.get(0), e);
+            for (Long line : lines) {
+                job.fail(line, "Chunk rolled back: " + e.getMessage());
+            }
+            return;
+        }
+
+        List<IndexedProduct> indexed = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            ProductImportRow row = chunk.get(i);
+            Long productId = ids.get(i);
+            productCache.invalidate(productId);
+            indexed.add(new IndexedProduct(productId, row.getName(), row.getBrand(), row.getCategory(),
+                    row.getMaterial(), row.getDescription(), row.getSize(), row.getPrice(), 0, 0L));
+        }
+        catalogIndexer.onProductsImported(indexed);
+        job.imported.addAndGet(chunk.size());
+        log.info("Product import {}: {} rows processed", job.id, job.processed.get());
+    }
+
+    private String validate(ProductImportRow row) {
+        if (row.getName() == null || row.getName().isBlank()) {
+            return "name is required";
+        }
+        if (row.getName().length() > 255) {
+            return "name is longer than 255 characters";
+        }
+        if (row.getPrice() == null || row.getPrice() < 0) {
+            return "price must be >= 0";
+        }
+        if (row.getQuantity() == null || row.getQuantity() < 0) {
+            return "quantity must be >= 0";
+        }
+        if (row.getImageUrls() == null) {
+            row.setImageUrls(new ArrayList<>());
+        }
+        return null;
+    }
+
+    private record ParsedRow(long line, ProductImportRow row) {
+    }
+
+    private interface RowSource {
+        // null khi het file; IllegalArgumentException khi dong khong parse duoc
+        ParsedRow next() throws IOException;
+
+        long lineNumber();
+    }
+
+    private class NdjsonRowSource implements RowSource {
+        private final BufferedReader reader;
+        private long line;
+
+        NdjsonRowSource(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public ParsedRow next() throws IOException {
+            String text;
+            do {
+                text = reader.readLine();
+                if (text == null) {
+                    return null;
+                }
+                line++;
+            } while (text.isBlank());
+            try {
+                return new ParsedRow(line, ndjsonReader.readValue(text));
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Invalid JSON: " + e.getOriginalMessage());
+            }
+        }
+
+        @Override
+        public long lineNumber() {
+            return line;
+        }
+    }
+
+    /*
+     * CSV co dong header (ten cot trung ten field cua ProductImportRow),
+     * ho tro gia tri trong dau nhay kep; imageUrls cach nhau boi '|'.
+     */
+    private static class CsvRowSource implements RowSource {
+        private final BufferedReader reader;
+        private final Map<String, Integer> columns = new HashMap<>();
+        private long line;
+
+        CsvRowSource(BufferedReader reader) throws IOException {
+            this.reader = reader;
+            String header = reader.readLine();
+            line++;
+            if (header == null) {
+                return;
+            }
+            List<String> names = parseLine(header.replace("\uFEFF", ""));
+            for (int i = 0; i < names.size(); i++) {
+                columns.put(names.get(i).trim(), i);
+            }
+        }
+
+        @Override
+        public ParsedRow next() throws IOException {
+            String text;
+            do {
+                text = reader.readLine();
+                if (text == null) {
+                    return null;
+                }
+                line++;
+            } while (text.isBlank());
+
+            List<String> values = parseLine(text);
+            ProductImportRow row = new ProductImportRow();
+            row.setName(value(values, "name"));
+            row.setBrand(value(values, "brand"));
+            row.setCategory(value(values, "category"));
+            row.setPrice(parseDouble(value(values, "price"), "price"));
+            row.setQuantity(parseInt(value(values, "quantity"), "quantity"));
+            row.setDescription(value(values, "description"));
+            row.setYearOfManufacture(parseInt(value(values, "yearOfManufacture"), "yearOfManufacture"));
+            row.setSize(value(values, "size"));
+            row.setMaterial(value(values, "material"));
+            String images = value(values, "imageUrls");
+            if (images != null) {
+                for (String url : images.split("\\|")) {
+                    if (!url.isBlank()) {
+                        row.getImageUrls().add(url.trim());
+                    }
+                }
+            }
+            return new ParsedRow(line, row);
+        }
+
+        @Override
+        public long lineNumber() {
+            return line;
+        }
+
+        private String value(List<String> values, String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= values.size()) {
+                return null;
+            }
+            String value = values.get(index);
+            return value.isEmpty() ? null : value;
+        }
+
+        private static Double parseDouble(String value, String column) {
+            try {
+                return value == null ? null : Double.valueOf(value.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid " + column + ": " + value);
+            }
+        }
+
+        private static Integer parseInt(String value, String column) {
+            try {
+                return value == null ? null : Integer.valueOf(value.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid " + column + ": " + value);
+            }
+        }
+
+        private static List<String> parseLine(String text) {
+            List<String> values = new ArrayList<>();
+            StringBuilder current = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        current.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    values.add(current.toString());
+                    current.setLength(0);
+                } else {
+                    current.append(c);
+                }
+            }
+            if (quoted) {
+                throw new IllegalArgumentException("Unterminated quoted value");
+            }
+            values.add(current.toString());
+            return values;
+        }
+    }
+
+    private static class ImportJob {
+        private final String id;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong imported = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final List<ProductImportError> errors = new ArrayList<>();
+        private volatile String status = "RUNNING";
+        private volatile LocalDateTime finishedAt;
+
+        ImportJob(String id) {
+            this.id = id;
+        }
+
+        void fail(long line, String message) {
+            failed.incrementAndGet();
+            synchronized (errors) {
+                if (errors.size() < MAX_REPORTED_ERRORS) {
+                    errors.add(new ProductImportError(line, message));
+                }
+            }
+        }
+
+        ProductImportStatusDTO toDTO() {
+            List<ProductImportError> snapshot;
+            synchronized (errors) {
+                snapshot = new ArrayList<>(errors);
+            }
+            return new ProductImportStatusDTO(id, status, processed.get(), imported.get(), failed.get(),
+                    startedAt, finishedAt, snapshot);
+        }
+    }
+}
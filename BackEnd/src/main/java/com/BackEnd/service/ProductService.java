@@ -1,52 +1,148 @@
 
 package com.BackEnd.service;
 
-import com.BackEnd.repository.CartItemRepository;
 import com.BackEnd.repository.ProductRepository;
 
 import jakarta.transaction.Transactional;
 
+import com.BackEnd.dto.CacheStatsDTO;
+import com.BackEnd.dto.CatalogVersion;
+import com.BackEnd.dto.CursorPage;
+import com.BackEnd.dto.FacetSearchResponse;
+import com.BackEnd.dto.ProductCardDTO;
+import com.BackEnd.dto.ProductDetailDTO;
+import com.BackEnd.dto.ProductSnapshot;
+import com.BackEnd.dto.ProductSearchHit;
+import com.BackEnd.dto.SuggestionDTO;
 import com.BackEnd.model.Product;
+import com.BackEnd.search.CatalogIndexer;
+import com.BackEnd.search.ProductAutocompleteIndex;
+import com.BackEnd.search.ProductFacetIndex;
+import com.BackEnd.search.ProductSearchIndex;
+import com.BackEnd.utils.CursorCodec;
+import com.BackEnd.utils.DTOConverter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
 public class ProductService {
 
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
     @Autowired
     private ProductRepository productRepository;
-    private final CartItemRepository cartItemRepo;
+    private final CartService cartService;
+    private final ProductCache productCache;
+    private final CatalogIndexer catalogIndexer;
+    private final ProductSearchIndex searchIndex;
+    private final ProductFacetIndex facetIndex;
+    private final ProductAutocompleteIndex autocompleteIndex;
+    private final CartRepricer cartRepricer;
 
     public void saveProduct(Product product) {
-        productRepository.save(product);
+        Product saved = productRepository.save(product);
+        productCache.invalidate(saved.getProductId());
+        catalogIndexer.onProductSaved(saved);
     }
 
     @Autowired
-    public ProductService(ProductRepository productRepo, CartItemRepository cartItemRepo) {
+    public ProductService(ProductRepository productRepo, CartService cartService,
+            ProductCache productCache, CatalogIndexer catalogIndexer, ProductSearchIndex searchIndex,
+            ProductFacetIndex facetIndex, ProductAutocompleteIndex autocompleteIndex, CartRepricer cartRepricer) {
         this.productRepository = productRepo;
-        this.cartItemRepo = cartItemRepo;
+        this.cartService = cartService;
+        this.productCache = productCache;
+        this.catalogIndexer = catalogIndexer;
+        this.searchIndex = searchIndex;
+        this.facetIndex = facetIndex;
+        this.autocompleteIndex = autocompleteIndex;
+        this.cartRepricer = cartRepricer;
     }
 
     public List<Product> getAllProducts() {
         return productRepository.findAll();
     }
 
+    public CursorPage<ProductCardDTO> getProductPage(String sort, String cursor, Integer size) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        CursorCodec.Cursor after = cursor == null || cursor.isBlank() ? null : CursorCodec.decode(cursor);
+        Long afterId = after == null ? 0L : after.id();
+        // lay them 1 dong de biet con trang sau hay khong
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        String sortKey = sort == null ? "id" : sort.toLowerCase();
+
+        List<ProductCardDTO> rows;
+        switch (sortKey) {
+            case "id" -> rows = productRepository.findPageOrderById(afterId, limit);
+            case "price" -> {
+                Double afterPrice = after == null ? -Double.MAX_VALUE : parsePrice(after.sortValue());
+                rows = productRepository.findPageOrderByPrice(afterPrice, afterId, limit);
+            }
+            case "name" -> rows = productRepository.findPageOrderByName(
+                    after == null ? "" : after.sortValue(), afterId, limit);
+            default -> throw new IllegalArgumentException("Unsupported sort: " + sort);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<ProductCardDTO> items = new ArrayList<>(hasMore ? rows.subList(0, pageSize) : rows);
+        String nextCursor = null;
+        if (hasMore) {
+            ProductCardDTO last = items.get(items.size() - 1);
+            String sortValue = switch (sortKey) {
+                case "price" -> String.valueOf(last.getPrice());
+                case "name" -> last.getName();
+                default -> "";
+            };
+            nextCursor = CursorCodec.encode(last.getProductId(), sortValue);
+        }
+        fillImageUrls(items);
+        return new CursorPage<>(items, nextCursor, hasMore);
+    }
+
+    private void fillImageUrls(List<ProductCardDTO> cards) {
+        if (cards.isEmpty()) {
+            return;
+        }
+        Map<Long, String> imageUrls = getPrimaryImageUrls(
+                cards.stream().map(ProductCardDTO::getProductId).toList());
+        cards.forEach(card -> card.setImageUrl(imageUrls.get(card.getProductId())));
+    }
+
+    private Double parsePrice(String value) {
+        try {
+            return Double.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor price: " + value, e);
+        }
+    }
+
     public List<String> getImageUrls(Long productId) {
-        List<String> imageUrls;
-        imageUrls = productRepository.findImageByProductId(productId)
-                .orElseThrow(() -> new RuntimeException("No image urls found " +
-                        "for product id " + productId));
+        List<String> imageUrls = productCache.getImageUrls(productId, this::loadImageUrls);
+        if (imageUrls == null) {
+            throw new RuntimeException("No image urls found " +
+                    "for product id " + productId);
+        }
         return imageUrls;
 
     }
 
+    private List<String> loadImageUrls(Long productId) {
+        return productRepository.findImageByProductId(productId)
+                .map(urls -> (List<String>) new ArrayList<>(urls))
+                .orElse(null);
+    }
+
     public String getImageUrl(Long productId) {
-        List<String> imageUrls = productRepository.findImageByProductId(productId)
-                .orElseThrow(() -> new RuntimeException("No image urls found for product id " + productId));
+        List<String> imageUrls = getImageUrls(productId);
 
         if (imageUrls.isEmpty()) {
             throw new RuntimeException("No image urls found for product id " + productId);
@@ -54,14 +150,78 @@ public class ProductService {
         return imageUrls.get(0);
     }
 
-    public Optional<Product> getProductById(Long id) {
-        return productRepository.findByProductId(id);
+    /*
+     * Anh dai dien cua nhieu san pham cung luc cho product grid:
+     * doc tu cache truoc, cac id con thieu lay bang 1 query IN.
+     */
+    public Map<Long, String> getPrimaryImageUrls(List<Long> productIds) {
+        Map<Long, String> result = new LinkedHashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long productId : productIds) {
+            if (productId == null || result.containsKey(productId)) {
+                continue;
+            }
+            List<String> cached = productCache.getCachedImageUrls(productId);
+            if (cached == null) {
+                missing.add(productId);
+            } else if (!cached.isEmpty()) {
+                result.put(productId, cached.get(0));
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            Map<Long, List<String>> loaded = new LinkedHashMap<>();
+            for (Object[] row : productRepository.findImagesByProductIds(missing)) {
+                loaded.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((String) row[1]);
+            }
+            loaded.forEach((productId, urls) -> {
+                productCache.putImageUrls(productId, urls);
+                result.put(productId, urls.get(0));
+            });
+        }
+        return result;
+    }
+
+    public Optional<ProductSnapshot> getProductSnapshot(Long id) {
+        return productCache.getProduct(id, productRepository::findByProductId);
+    }
+
+    public List<ProductSearchHit> searchProducts(String query, Integer limit) {
+        int max = limit == null ? DEFAULT_PAGE_SIZE : Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        return searchIndex.search(query, max);
+    }
+
+    public List<SuggestionDTO> suggest(String prefix, Integer limit) {
+        int max = limit == null ? ProductAutocompleteIndex.MAX_SUGGESTIONS : limit;
+        return autocompleteIndex.suggest(prefix, max);
+    }
+
+    public FacetSearchResponse filterProducts(Map<String, List<String>> selected, Double minPrice,
+            Double maxPrice, Integer offset, Integer limit) {
+        int max = limit == null ? DEFAULT_PAGE_SIZE : Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        int from = offset == null ? 0 : Math.max(offset, 0);
+        FacetSearchResponse response = facetIndex.search(selected, minPrice, maxPrice, from, max);
+        fillImageUrls(response.getItems());
+        return response;
+    }
+
+    public Optional<ProductDetailDTO> getProductDetail(Long id) {
+        return getProductSnapshot(id).map(DTOConverter::toProductDetailDTO);
+    }
+
+    public CatalogVersion getCatalogVersion() {
+        return productRepository.findCatalogVersion();
+    }
+
+    public List<CacheStatsDTO> getCacheStats() {
+        return productCache.getStats();
     }
 
     public boolean updateProduct(Long id, Product productDetails) {
         Optional<Product> optionalProduct = productRepository.findById(id);
         if (optionalProduct.isPresent()) {
             Product product = optionalProduct.get();
+            boolean priceChanged = !Objects.equals(product.getPrice(), productDetails.getPrice());
             product.setName(productDetails.getName());
             product.setBrand(productDetails.getBrand());
             product.setCategory(productDetails.getCategory());
@@ -73,16 +233,29 @@ public class ProductService {
             product.setPrice(productDetails.getPrice());
             product.setQuantity(productDetails.getQuantity());
             productRepository.save(product);
+            productCache.invalidate(id);
+            catalogIndexer.onProductSaved(product);
+            if (priceChanged) {
+                cartRepricer.enqueue(List.of(id));
+            }
             return true;
         }
         return false;
     }
 
+    // Doi gia hang loat (vd dot sale) ngoai updateProduct: tinh lai gio hang o background
+    public int repriceCarts(List<Long> productIds) {
+        cartRepricer.enqueue(productIds);
+        return cartRepricer.getPendingCount();
+    }
+
     @Transactional
     public boolean deleteProduct(Long id) {
-        cartItemRepo.deleteByProductId(id);
+        cartService.removeAllItemsByProductId(id);
         if (productRepository.existsById(id)) {
             productRepository.deleteById(id);
+            productCache.invalidateAfterCommit(id);
+            catalogIndexer.onProductDeleted(id);
             return true;
         }
         return false;
@@ -0,0 +1,85 @@
+package com.BackEnd.service;
+
+import com.BackEnd.dto.CursorPage;
+import com.BackEnd.dto.ReviewDTO;
+import com.BackEnd.dto.ReviewRequest;
+import com.BackEnd.model.Review;
+import com.BackEnd.model.User;
+import com.BackEnd.repository.ProductRepository;
+import com.BackEnd.repository.ReviewRepository;
+import com.BackEnd.repository.UserRepository;
+import com.BackEnd.search.CatalogIndexer;
+import com.BackEnd.utils.CursorCodec;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class ReviewService {
+
+    private final ReviewRepository reviewRepo;
+    private final ProductRepository productRepo;
+    private final UserRepository userRepo;
+    private final ProductCache productCache;
+    private final CatalogIndexer catalogIndexer;
+
+    @Transactional
+    public ReviewDTO submitReview(ReviewRequest req) {
+        if (req.getRating() < 1 || req.getRating() > 5) {
+            throw new IllegalArgumentException("Rating must be between 1 and 5");
+        }
+        User user = userRepo.findByUserName(req.getUserName())
+                .orElseThrow(() -> new RuntimeException("Not found user: " + req.getUserName()));
+        if (!productRepo.existsById(req.getProductId())) {
+            throw new RuntimeException("Product not found: " + req.getProductId());
+        }
+
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Review review = new Review();
+        // chi can khoa ngoai, khong load product
+        review.setProduct(productRepo.getReferenceById(req.getProductId()));
+        review.setUser(user);
+        review.setRating(req.getRating());
+        review.setComment(req.getComment());
+        review.setCreatedAt(now);
+        Review saved = reviewRepo.save(review);
+
+        // cap nhat tong hop rating tren product trong cung transaction
+        productRepo.addRating(req.getProductId(), req.getRating(), now);
+        // rating moi chi thay duoc sau commit -> bo cache ca luc do
+        productCache.invalidateAfterCommit(req.getProductId());
+        // rating tren card cua facet search: rollback thi khong cong
+        Long productId = req.getProductId();
+        int rating = req.getRating();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                catalogIndexer.onRatingAdded(productId, rating);
+            }
+        });
+
+        return new ReviewDTO(saved.getReviewId(), user.getUserName(), saved.getRating(),
+                saved.getComment(), saved.getCreatedAt());
+    }
+
+    public CursorPage<ReviewDTO> getReviews(Long productId, String cursor, Integer size) {
+        int pageSize = size == null ? ProductService.DEFAULT_PAGE_SIZE
+                : Math.min(Math.max(size, 1), ProductService.MAX_PAGE_SIZE);
+        Long beforeId = cursor == null || cursor.isBlank() ? Long.MAX_VALUE : CursorCodec.decode(cursor).id();
+
+        List<ReviewDTO> rows = reviewRepo.findPageByProductId(productId, beforeId, PageRequest.of(0, pageSize + 1));
+        boolean hasMore = rows.size() > pageSize;
+        List<ReviewDTO> items = new ArrayList<>(hasMore ? rows.subList(0, pageSize) : rows);
+        String nextCursor = hasMore ? CursorCodec.encode(items.get(items.size() - 1).getReviewId(), "") : null;
+        return new CursorPage<>(items, nextCursor, hasMore);
+    }
+}
@@ -0,0 +1,34 @@
+package com.BackEnd.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/*
+ * Cursor cho keyset pagination: client chi nhan mot chuoi opaque,
+ * ben trong la "<id>:<sortValue>" cua ban ghi cuoi cung da tra ve.
+ */
+public class CursorCodec {
+
+    public static String encode(Long id, String sortValue) {
+        String raw = id + ":" + (sortValue == null ? "" : sortValue);
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf(':');
+            if (sep <= 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            return new Cursor(Long.parseLong(raw.substring(0, sep)), raw.substring(sep + 1));
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException cung la IllegalArgumentException
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    public record Cursor(Long id, String sortValue) {
+    }
+}
@@ -6,6 +6,7 @@ import com.BackEnd.model.CartItem;
 import com.BackEnd.model.Order;
 import com.BackEnd.model.OrderDetail;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -32,19 +33,32 @@ public class DTOConverter {
                 cart.getStatus().name());
     }
 
-    public static BasicCartInfoDto toCartBasicInfoDTO(Cart cart) {
-        Long cartId = cart.getCartId();
-        String status = cart.getStatus().name();
-        Double totalPrice = cart.getTotalPrice();
-        return new BasicCartInfoDto(cartId, status, totalPrice);
-    }
-
     public static BasicCartItemDTO toBasicCartItemDTO(CartItem cartItem) {
         Long productId = cartItem.getProduct().getProductId();
         int quantity = cartItem.getQuantity();
         return new BasicCartItemDTO(productId, quantity);
     }
 
+    // moi lan 1 DTO moi: ban chup trong cache dung chung, khong dua list cua no ra ngoai
+    public static ProductDetailDTO toProductDetailDTO(ProductSnapshot product) {
+        return new ProductDetailDTO(
+                product.productId(),
+                product.name(),
+                product.brand(),
+                product.category(),
+                product.price(),
+                product.quantity(),
+                product.description(),
+                product.yearOfManufacture(),
+                product.size(),
+                product.material(),
+                new ArrayList<>(product.images()),
+                product.version(),
+                product.ratingCount(),
+                product.ratingAverage(),
+                new ArrayList<>(product.ratingDistribution()));
+    }
+
     public static OrderDetailDTO toOrderDetailDTO(OrderDetail orderDetail) {
         return new OrderDetailDTO(
                 orderDetail.getProduct().getProductId(),
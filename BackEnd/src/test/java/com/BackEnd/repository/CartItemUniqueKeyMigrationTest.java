@@ -0,0 +1,97 @@
+package com.BackEnd.repository;
+
+import com.BackEnd.model.Cart;
+import com.BackEnd.model.Product;
+import com.BackEnd.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Bang cart_item cu: chua co unique key, co dong trung (cart_id, product_id)
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:cart_item_key;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.auto_quote_keyword=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(CartItemUniqueKeyMigration.class)
+// DDL tu commit: khong chay trong transaction cua test
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CartItemUniqueKeyMigrationTest {
+
+    @Autowired
+    private CartItemUniqueKeyMigration migration;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private ProductRepository productRepo;
+
+    @Autowired
+    private CartRepository cartRepo;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM cart_item");
+        cartRepo.deleteAll();
+        productRepo.deleteAll();
+        userRepo.deleteAll();
+        migration.migrate();
+    }
+
+    @Test
+    void duplicatesAreMergedBeforeTheKeyIsAdded() {
+        User user = new User();
+        user.setUserName("legacy-user");
+        user.setPassword("secret");
+        user.setFullName("Legacy User");
+        user.setGmail("legacy-user@example.com");
+        userRepo.save(user);
+        Product a = productRepo.save(new Product("Kinh", "Oakley", "Kinh", 100.0, 10, "", 2024, "M", "Nhua", 0));
+        Product b = productRepo.save(new Product("Gang", "Nike", "Gang", 50.0, 10, "", 2024, "M", "Da", 0));
+        Cart cart = new Cart();
+        cart.setUser(user);
+        cartRepo.save(cart);
+
+        jdbcTemplate.execute("ALTER TABLE cart_item DROP CONSTRAINT " + CartItemUniqueKeyMigration.KEY_NAME);
+        assertFalse(migration.hasUniqueKey());
+        String insert = "INSERT INTO cart_item (cart_id, product_id, quantity) VALUES (?, ?, ?)";
+        jdbcTemplate.update(insert, cart.getCartId(), a.getProductId(), 1);
+        jdbcTemplate.update(insert, cart.getCartId(), a.getProductId(), 2);
+        jdbcTemplate.update(insert, cart.getCartId(), a.getProductId(), 4);
+        jdbcTemplate.update(insert, cart.getCartId(), b.getProductId(), 3);
+        Long firstA = jdbcTemplate.queryForObject(
+                "SELECT MIN(cart_item_id) FROM cart_item WHERE product_id = ?", Long.class, a.getProductId());
+
+        migration.migrate();
+
+        assertTrue(migration.hasUniqueKey());
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT cart_item_id, product_id, quantity FROM cart_item ORDER BY product_id");
+        assertEquals(2, rows.size());
+        assertEquals(firstA, ((Number) rows.get(0).get("cart_item_id")).longValue());
+        assertEquals(7, ((Number) rows.get(0).get("quantity")).intValue());
+        assertEquals(3, ((Number) rows.get(1).get("quantity")).intValue());
+        assertThrows(DataIntegrityViolationException.class,
+                () -> jdbcTemplate.update(insert, cart.getCartId(), b.getProductId(), 1));
+    }
+}
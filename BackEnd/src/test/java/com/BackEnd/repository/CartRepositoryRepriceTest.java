@@ -0,0 +1,77 @@
+package com.BackEnd.repository;
+
+import com.BackEnd.model.Cart;
+import com.BackEnd.model.CartItem;
+import com.BackEnd.model.Product;
+import com.BackEnd.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Doi gia san pham chi tinh lai tong, khong lam gio bo quen thanh "vua dung"
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:cart_reprice;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.auto_quote_keyword=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class CartRepositoryRepriceTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private CartRepository cartRepo;
+
+    private Long cartId;
+    private Long productId;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setUserName("reprice-user");
+        user.setPassword("secret");
+        user.setFullName("Reprice User");
+        user.setGmail("reprice-user@example.com");
+        em.persist(user);
+
+        Product product = new Product("Non", "Puma", "Non", 100.0, 10, "", 2024, "L", "Vai", 0);
+        em.persist(product);
+        Cart cart = new Cart();
+        cart.setUser(user);
+        em.persist(cart);
+        em.persist(new CartItem(product, 2, cart));
+        em.flush();
+        cartId = cart.getCartId();
+        productId = product.getProductId();
+        cartRepo.recomputeTotals(List.of(cartId));
+
+        // gio khong ai dung 60 ngay, sau do san pham doi gia
+        em.getEntityManager().createNativeQuery("UPDATE cart SET updated_at = :at WHERE cart_id = :id")
+                .setParameter("at", LocalDateTime.now().minusDays(60))
+                .setParameter("id", cartId)
+                .executeUpdate();
+        em.getEntityManager().createNativeQuery("UPDATE product SET price = 150 WHERE product_id = :id")
+                .setParameter("id", productId)
+                .executeUpdate();
+        em.clear();
+    }
+
+    @Test
+    void repricedCartStaysAbandoned() {
+        assertEquals(1, cartRepo.repriceActiveCarts(List.of(productId), 0L, cartId));
+        em.clear();
+
+        assertEquals(300.0, cartRepo.findTotalPriceByCartId(cartId).orElseThrow(), 0.001);
+        List<Long> abandoned = cartRepo.findAbandonedCartIds(0L, LocalDateTime.now().minusDays(30), 10);
+        assertEquals(List.of(cartId), abandoned);
+    }
+}
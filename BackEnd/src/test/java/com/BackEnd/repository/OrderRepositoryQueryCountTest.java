@@ -0,0 +1,116 @@
+package com.BackEnd.repository;
+
+import com.BackEnd.dto.OrderDTO;
+import com.BackEnd.model.Order;
+import com.BackEnd.model.OrderDetail;
+import com.BackEnd.model.Product;
+import com.BackEnd.model.User;
+import com.BackEnd.utils.DTOConverter;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// So cau SQL khi map danh sach don hang sang OrderDTO khong duoc tang theo so don / so chi tiet
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:order_query_count;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.auto_quote_keyword=true",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class OrderRepositoryQueryCountTest {
+
+    private static final int ORDERS = 20;
+    private static final int DETAILS_PER_ORDER = 3;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private EntityManagerFactory emf;
+
+    @Autowired
+    private OrderRepository orderRepo;
+
+    private Statistics statistics;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUserName("order-user");
+        user.setPassword("secret");
+        user.setFullName("Order User");
+        user.setGmail("order-user@example.com");
+        em.persist(user);
+
+        List<Product> products = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            Product product = new Product("Ao " + i, "Adidas", "Ao", 50.0 * i, 10, "", 2024, "M", "Cotton", 0);
+            product.getImages().add("https://img/" + i + ".jpg");
+            em.persist(product);
+            products.add(product);
+        }
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = new Order();
+            order.setUser(user);
+            order.setOrderCode(1000L + i);
+            order.setCreatedAt(LocalDateTime.now());
+            order.setTotalPrice(100.0);
+            order.setStatus(i % 2 == 0 ? Order.OrderStatus.PAID : Order.OrderStatus.PENDING);
+            em.persist(order);
+            for (int d = 0; d < DETAILS_PER_ORDER; d++) {
+                em.persist(new OrderDetail(order, products.get((i + d) % products.size()), 1, 50.0));
+            }
+        }
+        em.flush();
+        em.clear();
+
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void allOrdersMapInFixedNumberOfStatements() {
+        List<OrderDTO> dtos = orderRepo.findAllWithDetails().stream().map(DTOConverter::toOrderDTO).toList();
+
+        assertEquals(ORDERS, dtos.size());
+        dtos.forEach(dto -> assertEquals(DETAILS_PER_ORDER, dto.getOrderDetailDTOList().size()));
+        // 1 cau join order/user/payment/detail/product + 1 cau IN cho images (@BatchSize)
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void filteredFindersUseTheSameGraph() {
+        List<OrderDTO> paid = orderRepo.findWithDetailsByStatus(Order.OrderStatus.PAID).stream()
+                .map(DTOConverter::toOrderDTO).toList();
+        assertEquals(ORDERS / 2, paid.size());
+        assertEquals(2, statistics.getPrepareStatementCount());
+
+        em.clear();
+        statistics.clear();
+        User ref = em.getEntityManager().getReference(User.class, user.getUserId());
+        List<Order> pending = orderRepo.findWithDetailsByUserAndStatus(ref, Order.OrderStatus.PENDING);
+        pending.forEach(DTOConverter::toOrderDTO);
+        assertEquals(ORDERS / 2, pending.size());
+        assertEquals(2, statistics.getPrepareStatementCount());
+
+        em.clear();
+        statistics.clear();
+        OrderDTO one = DTOConverter.toOrderDTO(orderRepo.findWithDetailsByOrderCode(1000L));
+        assertEquals(DETAILS_PER_ORDER, one.getOrderDetailDTOList().size());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+}
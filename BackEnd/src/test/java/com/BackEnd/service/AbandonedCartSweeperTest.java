@@ -0,0 +1,174 @@
+package com.BackEnd.service;
+
+import com.BackEnd.model.Cart;
+import com.BackEnd.model.CartItem;
+import com.BackEnd.model.Order;
+import com.BackEnd.model.Product;
+import com.BackEnd.model.User;
+import com.BackEnd.repository.CartItemRepository;
+import com.BackEnd.repository.CartRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Don gio bo quen: xoa dung gio + cart_item, giu gio co order / vua duoc dung lai
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:cart_sweep;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.auto_quote_keyword=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class AbandonedCartSweeperTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CartRepository cartRepo;
+
+    @Autowired
+    private CartItemRepository cartItemRepo;
+
+    private User user;
+    private Product product;
+
+    /*
+     * Sweeper goi isLoaded giua luc doc ung vien (khong khoa) va luc khoa + kiem tra lai:
+     * dung cho nay de gia lap 1 request dung lai gio dung luc do. Che do "db": khong co journal.
+     */
+    private class RacingSessionStore extends CartSessionStore {
+        Long touchedCartId;
+        Long loadedCartId;
+
+        RacingSessionStore() {
+            super(null, null, null, null, null, null, "db", 0, "");
+        }
+
+        @Override
+        public boolean isLoaded(Long cartId) {
+            if (cartId.equals(touchedCartId)) {
+                jdbcTemplate.update("UPDATE cart SET updated_at = CURRENT_TIMESTAMP WHERE cart_id = ?", cartId);
+            }
+            return cartId.equals(loadedCartId);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUserName("sweep-user");
+        user.setPassword("secret");
+        user.setFullName("Sweep User");
+        user.setGmail("sweep-user@example.com");
+        em.persist(user);
+        product = new Product("Mu", "Adidas", "Mu", 80.0, 10, "", 2024, "M", "Vai", 0);
+        em.persist(product);
+    }
+
+    private Long cart(Cart.CartStatus status, int idleDays, int items) {
+        Cart cart = new Cart();
+        cart.setUser(user);
+        cart.setStatus(status);
+        em.persist(cart);
+        if (items > 0) {
+            em.persist(new CartItem(product, items, cart));
+        }
+        em.flush();
+        // @PreUpdate dat lai updated_at: sua thang bang SQL
+        jdbcTemplate.update("UPDATE cart SET updated_at = ? WHERE cart_id = ?",
+                LocalDateTime.now().minusDays(idleDays), cart.getCartId());
+        return cart.getCartId();
+    }
+
+    private void order(Long cartId, long orderCode) {
+        Order order = new Order();
+        order.setUser(user);
+        order.setOrderCode(orderCode);
+        order.setCreatedAt(LocalDateTime.now());
+        order.setTotalPrice(80.0);
+        order.setCart(em.find(Cart.class, cartId));
+        em.persist(order);
+        em.flush();
+    }
+
+    private List<Long> remainingCarts() {
+        return jdbcTemplate.queryForList("SELECT cart_id FROM cart ORDER BY cart_id", Long.class);
+    }
+
+    private int itemCount(Long cartId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cart_item WHERE cart_id = ?", Integer.class, cartId);
+    }
+
+    private AbandonedCartSweeper sweeper(RacingSessionStore sessionStore) {
+        // lo 2 gio: duyet keyset qua nhieu lo
+        return new AbandonedCartSweeper(cartRepo, cartItemRepo, sessionStore, new ActiveCartCache(100, 300),
+                transactionTemplate, 30, 2, 10);
+    }
+
+    @Test
+    void idleCartsWithoutOrderArePurgedWithTheirItems() {
+        Long idleActive = cart(Cart.CartStatus.ACTIVE, 60, 2);
+        Long idleSubmitted = cart(Cart.CartStatus.SUBMITTED, 45, 1);
+        Long idleEmpty = cart(Cart.CartStatus.ACTIVE, 31, 0);
+        Long recent = cart(Cart.CartStatus.ACTIVE, 5, 3);
+        Long completed = cart(Cart.CartStatus.COMPLETED, 90, 1);
+        em.clear();
+
+        sweeper(new RacingSessionStore()).sweep();
+
+        assertEquals(List.of(recent, completed), remainingCarts());
+        assertEquals(0, itemCount(idleActive));
+        assertEquals(0, itemCount(idleSubmitted));
+        assertEquals(0, itemCount(idleEmpty));
+        assertEquals(1, itemCount(recent));
+        assertEquals(1, itemCount(completed));
+    }
+
+    @Test
+    void cartsReferencedByAnOrderAreKept() {
+        Long ordered = cart(Cart.CartStatus.SUBMITTED, 60, 2);
+        order(ordered, 5001L);
+        Long abandoned = cart(Cart.CartStatus.ACTIVE, 60, 1);
+        em.clear();
+
+        sweeper(new RacingSessionStore()).sweep();
+
+        assertEquals(List.of(ordered), remainingCarts());
+        assertEquals(1, itemCount(ordered));
+        assertEquals(0, itemCount(abandoned));
+    }
+
+    @Test
+    void cartTouchedBeforeTheLockedRecheckIsSkipped() {
+        Long touched = cart(Cart.CartStatus.ACTIVE, 60, 2);
+        Long loaded = cart(Cart.CartStatus.ACTIVE, 60, 1);
+        Long abandoned = cart(Cart.CartStatus.ACTIVE, 60, 1);
+        em.clear();
+        RacingSessionStore sessionStore = new RacingSessionStore();
+        sessionStore.touchedCartId = touched;
+        sessionStore.loadedCartId = loaded;
+
+        sweeper(sessionStore).sweep();
+
+        assertEquals(List.of(touched, loaded), remainingCarts());
+        assertEquals(1, itemCount(touched));
+        assertEquals(1, itemCount(loaded));
+        assertEquals(0, itemCount(abandoned));
+    }
+}
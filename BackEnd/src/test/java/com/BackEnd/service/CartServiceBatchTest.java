@@ -0,0 +1,186 @@
+package com.BackEnd.service;
+
+import com.BackEnd.dto.CartBatchRequest;
+import com.BackEnd.dto.CartBatchResponse;
+import com.BackEnd.dto.CartItemDTO;
+import com.BackEnd.dto.CartOperation;
+import com.BackEnd.model.Cart;
+import com.BackEnd.model.CartItem;
+import com.BackEnd.model.Product;
+import com.BackEnd.model.User;
+import com.BackEnd.repository.CartItemBatchRepository;
+import com.BackEnd.repository.CartItemRepository;
+import com.BackEnd.repository.CartItemUniqueKeyMigration;
+import com.BackEnd.repository.CartRepository;
+import com.BackEnd.repository.ProductRepository;
+import com.BackEnd.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// POST /app/cart/batch: nhieu thao tac, 1 transaction, tong tinh lai 1 lan
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:cart_batch;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.auto_quote_keyword=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ CartService.class, CartSessionStore.class, CartLockManager.class, ActiveCartCache.class,
+        OrderCodeGenerator.class, CartItemBatchRepository.class, CartItemUniqueKeyMigration.class,
+        ProductCache.class })
+// batch tu mo transaction: rollback cua batch phai nhin thay duoc tu ngoai
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CartServiceBatchTest {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private ProductRepository productRepo;
+
+    @Autowired
+    private CartRepository cartRepo;
+
+    @Autowired
+    private CartItemRepository cartItemRepo;
+
+    private Long cartId;
+    private Long kinhId;
+    private Long gangId;
+    private Long nonId;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setUserName("batch-user");
+        user.setPassword("secret");
+        user.setFullName("Batch User");
+        user.setGmail("batch-user@example.com");
+        userRepo.save(user);
+        Product kinh = productRepo.save(new Product("Kinh", "Oakley", "Kinh", 100.0, 10, "", 2024, "M", "Nhua", 0));
+        Product gang = productRepo.save(new Product("Gang", "Nike", "Gang", 50.0, 10, "", 2024, "M", "Da", 0));
+        nonId = productRepo.save(new Product("Non", "Puma", "Non", 30.0, 10, "", 2024, "L", "Vai", 0))
+                .getProductId();
+        kinhId = kinh.getProductId();
+        gangId = gang.getProductId();
+        Cart cart = new Cart();
+        cart.setUser(user);
+        cart = cartRepo.save(cart);
+        cartId = cart.getCartId();
+        cartItemRepo.save(new CartItem(kinh, 2, cart));
+        cartItemRepo.save(new CartItem(gang, 1, cart));
+        cartRepo.recomputeTotals(List.of(cartId));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM cart_item");
+        cartRepo.deleteAll();
+        productRepo.deleteAll();
+        userRepo.deleteAll();
+    }
+
+    private static CartOperation op(CartOperation.Type type, Long productId, Integer quantity) {
+        return new CartOperation(type, productId, quantity);
+    }
+
+    private Map<Long, Integer> itemsInDb() {
+        Map<Long, Integer> items = new HashMap<>();
+        jdbcTemplate.query("SELECT product_id, quantity FROM cart_item WHERE cart_id = ?",
+                (RowCallbackHandler) rs -> items.put(rs.getLong(1), rs.getInt(2)), cartId);
+        return items;
+    }
+
+    private void assertTotalsInDb(double totalPrice, int itemCount) {
+        Map<String, Object> cart = jdbcTemplate.queryForMap(
+                "SELECT total_price, item_count FROM cart WHERE cart_id = ?", cartId);
+        assertEquals(totalPrice, ((Number) cart.get("total_price")).doubleValue(), 0.001);
+        assertEquals(itemCount, ((Number) cart.get("item_count")).intValue());
+        // batch tu tinh tong tren entity: phai trung voi tinh lai tu cart_item
+        cartRepo.recomputeTotals(List.of(cartId));
+        Map<String, Object> recomputed = jdbcTemplate.queryForMap(
+                "SELECT total_price, item_count FROM cart WHERE cart_id = ?", cartId);
+        assertEquals(totalPrice, ((Number) recomputed.get("total_price")).doubleValue(), 0.001);
+        assertEquals(itemCount, ((Number) recomputed.get("item_count")).intValue());
+    }
+
+    @Test
+    void mixedBatchIsAppliedInOrder() {
+        CartBatchResponse response = cartService.applyBatch(new CartBatchRequest(cartId, List.of(
+                op(CartOperation.Type.ADD, nonId, 2),
+                op(CartOperation.Type.SET, kinhId, 5),
+                op(CartOperation.Type.REMOVE, gangId, null),
+                op(CartOperation.Type.INCREASE, nonId, null),
+                op(CartOperation.Type.DECREASE, kinhId, 2),
+                // xoa roi them lai trong cung batch: khong trung unique (cart_id, product_id)
+                op(CartOperation.Type.ADD, gangId, 4))));
+
+        Map<Long, Integer> expected = Map.of(kinhId, 3, nonId, 3, gangId, 4);
+        Map<Long, Integer> returned = new HashMap<>();
+        for (CartItemDTO item : response.getItems()) {
+            returned.put(item.getProductId(), item.getQuantity());
+        }
+        assertEquals(expected, returned);
+        assertEquals(expected, itemsInDb());
+        // 3*100 + 3*30 + 4*50
+        assertEquals(590.0, response.getTotalPrice(), 0.001);
+        assertEquals(10, response.getItemCount());
+        assertTotalsInDb(590.0, 10);
+    }
+
+    @Test
+    void invalidOperationRollsBackTheWholeBatch() {
+        CartBatchRequest request = new CartBatchRequest(cartId, List.of(
+                op(CartOperation.Type.SET, kinhId, 9),
+                op(CartOperation.Type.ADD, nonId, 1),
+                op(CartOperation.Type.CLEAR, null, null),
+                op(CartOperation.Type.ADD, gangId, 2),
+                // khong co trong gio
+                op(CartOperation.Type.REMOVE, kinhId, null)));
+
+        assertThrows(RuntimeException.class, () -> cartService.applyBatch(request));
+
+        assertEquals(Map.of(kinhId, 2, gangId, 1), itemsInDb());
+        assertTotalsInDb(250.0, 3);
+    }
+
+    @Test
+    void batchSizeIsLimited() {
+        List<CartOperation> tooMany = new ArrayList<>(
+                Collections.nCopies(CartService.MAX_BATCH_OPERATIONS + 1, op(CartOperation.Type.INCREASE, kinhId, 1)));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> cartService.applyBatch(new CartBatchRequest(cartId, tooMany)));
+        assertEquals(Map.of(kinhId, 2, gangId, 1), itemsInDb());
+
+        List<CartOperation> atLimit = tooMany.subList(0, CartService.MAX_BATCH_OPERATIONS);
+        CartBatchResponse response = cartService.applyBatch(new CartBatchRequest(cartId, atLimit));
+        int kinh = 2 + CartService.MAX_BATCH_OPERATIONS;
+        assertEquals(Map.of(kinhId, kinh, gangId, 1), itemsInDb());
+        assertEquals(kinh * 100.0 + 50.0, response.getTotalPrice(), 0.001);
+        assertTotalsInDb(kinh * 100.0 + 50.0, kinh + 1);
+    }
+}
@@ -0,0 +1,233 @@
+package com.BackEnd.service;
+
+import com.BackEnd.dto.AddToCartRequest;
+import com.BackEnd.model.Cart;
+import com.BackEnd.model.Product;
+import com.BackEnd.model.User;
+import com.BackEnd.repository.CartItemBatchRepository;
+import com.BackEnd.repository.CartItemRepository;
+import com.BackEnd.repository.CartRepository;
+import com.BackEnd.repository.OrderRepository;
+import com.BackEnd.repository.ProductRepository;
+import com.BackEnd.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Nhieu request sua cung 1 gio: khoa theo cart giu dung so luong va tong; gio khac nhau khong cho nhau
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:cart_concurrency;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.auto_quote_keyword=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+// moi thread co transaction rieng: du lieu test phai commit that
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CartServiceConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 25;
+
+    @TempDir
+    Path journalDir;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private ProductRepository productRepo;
+
+    @Autowired
+    private CartRepository cartRepo;
+
+    @Autowired
+    private CartItemRepository cartItemRepo;
+
+    @Autowired
+    private OrderRepository orderRepo;
+
+    private final CartLockManager cartLocks = new CartLockManager(256, 200);
+    private ExecutorService pool;
+    private CartSessionStore sessionStore;
+    private CartService cartService;
+    private CartItemService cartItemService;
+    private Long cartId;
+    private Long otherCartId;
+    private Long kinhId;
+    private Long gangId;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setUserName("concurrent-user");
+        user.setPassword("secret");
+        user.setFullName("Concurrent User");
+        user.setGmail("concurrent-user@example.com");
+        userRepo.save(user);
+        kinhId = productRepo.save(new Product("Kinh", "Oakley", "Kinh", 100.0, 10, "", 2024, "M", "Nhua", 0))
+                .getProductId();
+        gangId = productRepo.save(new Product("Gang", "Nike", "Gang", 50.0, 10, "", 2024, "M", "Da", 0))
+                .getProductId();
+        Cart cart = new Cart();
+        cart.setUser(user);
+        cartId = cartRepo.save(cart).getCartId();
+        Cart other = new Cart();
+        other.setUser(user);
+        otherCartId = cartRepo.save(other).getCartId();
+        pool = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void cleanUp() throws InterruptedException {
+        pool.shutdownNow();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        if (sessionStore != null) {
+            sessionStore.shutdown();
+        }
+        jdbcTemplate.update("DELETE FROM cart_item");
+        cartRepo.deleteAll();
+        productRepo.deleteAll();
+        userRepo.deleteAll();
+    }
+
+    // "db" = ghi thang DB, "memory" = write-behind
+    private void services(String mode) {
+        sessionStore = new CartSessionStore(cartRepo, cartItemRepo, new CartItemBatchRepository(jdbcTemplate),
+                productRepo, new ProductCache(100, 600), transactionTemplate, mode, 100, journalDir.toString());
+        sessionStore.replayJournal();
+        cartService = new CartService(cartRepo, cartItemRepo, productRepo, userRepo, orderRepo, sessionStore,
+                cartLocks, new ActiveCartCache(100, 300), null, transactionTemplate);
+        cartItemService = new CartItemService(cartItemRepo, cartRepo, sessionStore, cartLocks, transactionTemplate);
+    }
+
+    // THREADS thread cung chay `round` ROUNDS lan, bat dau cung luc
+    private void runConcurrently(Runnable round) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<Void>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(CompletableFuture.runAsync(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                for (int i = 0; i < ROUNDS; i++) {
+                    round.run();
+                }
+            }, pool));
+        }
+        start.countDown();
+        CompletableFuture.allOf(workers.toArray(CompletableFuture[]::new)).get(60, TimeUnit.SECONDS);
+    }
+
+    private int quantityInDb(Long productId) {
+        return jdbcTemplate.queryForObject("SELECT quantity FROM cart_item WHERE cart_id = ? AND product_id = ?",
+                Integer.class, cartId, productId);
+    }
+
+    private void assertTotals(double totalPrice, int itemCount) {
+        Map<String, Object> cart = jdbcTemplate.queryForMap(
+                "SELECT total_price, item_count FROM cart WHERE cart_id = ?", cartId);
+        assertEquals(totalPrice, ((Number) cart.get("total_price")).doubleValue(), 0.001);
+        assertEquals(itemCount, ((Number) cart.get("item_count")).intValue());
+        // tong cong don phai trung voi tinh lai tu cart_item
+        cartRepo.recomputeTotals(List.of(cartId));
+        assertEquals(totalPrice, cartRepo.findTotalPriceByCartId(cartId).orElseThrow(), 0.001);
+    }
+
+    @Test
+    void concurrentAddAndSetOnOneCartKeepQuantitiesAndTotals() throws Exception {
+        services("db");
+        cartService.addItemToCart(new AddToCartRequest(cartId, gangId, 1));
+
+        runConcurrently(() -> {
+            cartService.addItemToCart(new AddToCartRequest(cartId, kinhId, 1));
+            // SET tinh lai tong tu cart_item, xen giua cac lan cong delta cua ADD
+            cartService.updateItemQuantity(cartId, gangId, 3);
+        });
+
+        assertEquals(THREADS * ROUNDS, quantityInDb(kinhId));
+        assertEquals(3, quantityInDb(gangId));
+        assertTotals(THREADS * ROUNDS * 100.0 + 3 * 50.0, THREADS * ROUNDS + 3);
+    }
+
+    @Test
+    void concurrentAddAndAdjustInWriteBehindMode() throws Exception {
+        services("memory");
+        Long itemId = cartService.addItemToCart(new AddToCartRequest(cartId, kinhId, 50)).getCartItemId();
+
+        // moi vong +2 +1 -1; bat dau tu 50 nen decrease khong bao gio cham muc toi thieu 1
+        runConcurrently(() -> {
+            cartService.addItemToCart(new AddToCartRequest(cartId, kinhId, 2));
+            cartItemService.increaseQuantity(itemId);
+            cartItemService.decreaseQuantity(itemId);
+        });
+
+        int expected = 50 + THREADS * ROUNDS * 2;
+        assertEquals(expected * 100.0, cartService.getCartTotalAmount(cartId), 0.001);
+        cartService.flushCart(cartId);
+        assertEquals(expected, quantityInDb(kinhId));
+        assertTotals(expected * 100.0, expected);
+    }
+
+    @Test
+    void differentCartsDoNotSerialize() throws Exception {
+        services("db");
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // 1 request dang giu khoa cua cartId (vd checkout cham)
+        CompletableFuture<Void> slow = CompletableFuture.runAsync(() -> cartLocks.withLock(cartId, () -> {
+            holding.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }), pool);
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Void> sameCart = CompletableFuture.runAsync(
+                () -> cartService.addItemToCart(new AddToCartRequest(cartId, kinhId, 1)), pool);
+        CompletableFuture<Void> otherCart = CompletableFuture.runAsync(
+                () -> cartService.addItemToCart(new AddToCartRequest(otherCartId, kinhId, 1)), pool);
+
+        otherCart.get(5, TimeUnit.SECONDS);
+        // cung gio: van dang cho khoa
+        Thread.sleep(200);
+        assertFalse(sameCart.isDone());
+
+        release.countDown();
+        slow.get(5, TimeUnit.SECONDS);
+        sameCart.get(5, TimeUnit.SECONDS);
+        assertEquals(1, quantityInDb(kinhId));
+        assertTrue(cartLocks.getStats().getContended() >= 1);
+    }
+}
@@ -0,0 +1,126 @@
+package com.BackEnd.service;
+
+import com.BackEnd.dto.CartItemDTO;
+import com.BackEnd.model.Cart;
+import com.BackEnd.model.CartItem;
+import com.BackEnd.model.Product;
+import com.BackEnd.model.User;
+import com.BackEnd.repository.CartItemBatchRepository;
+import com.BackEnd.repository.CartItemUniqueKeyMigration;
+import com.BackEnd.repository.CartRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Dem so cau SQL moi lan doc gio hang (truoc day: cart + items + product + images tung dong)
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:cart_query_count;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.auto_quote_keyword=true",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ CartService.class, CartSessionStore.class, CartLockManager.class, ActiveCartCache.class,
+        OrderCodeGenerator.class, CartItemBatchRepository.class, CartItemUniqueKeyMigration.class,
+        ProductCache.class })
+class CartServiceQueryCountTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private EntityManagerFactory emf;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CartRepository cartRepo;
+
+    private Statistics statistics;
+    private Long cartId;
+    private Long emptyCartId;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setUserName("cart-user");
+        user.setPassword("secret");
+        user.setFullName("Cart User");
+        user.setGmail("cart-user@example.com");
+        em.persist(user);
+
+        Cart cart = new Cart();
+        cart.setUser(user);
+        em.persist(cart);
+        Cart emptyCart = new Cart();
+        emptyCart.setUser(user);
+        em.persist(emptyCart);
+
+        for (int i = 1; i <= 5; i++) {
+            Product product = new Product("Giay " + i, "Nike", "Giay", 100.0 * i, 10, "", 2024, "40", "Da", 0);
+            product.getImages().add("https://img/" + i + "-a.jpg");
+            product.getImages().add("https://img/" + i + "-b.jpg");
+            em.persist(product);
+            em.persist(new CartItem(product, i, cart));
+        }
+        em.flush();
+        cartId = cart.getCartId();
+        emptyCartId = emptyCart.getCartId();
+        // item duoc persist truc tiep, khong qua CartService -> dua tong ve dung
+        cartRepo.recomputeTotals(List.of(cartId, emptyCartId));
+        em.clear();
+
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void cartItemsLoadInOneStatement() {
+        List<CartItemDTO> items = cartService.getCartItemsInActiveCart(cartId);
+
+        assertEquals(5, items.size());
+        assertEquals("Giay 1", items.get(0).getProductName());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(0, statistics.getCollectionLoadCount());
+    }
+
+    @Test
+    void cartTotalIsASingleColumnRead() {
+        Double total = cartService.getCartTotalAmount(cartId);
+
+        // 100*1 + 200*2 + 300*3 + 400*4 + 500*5
+        assertEquals(5500.0, total, 0.001);
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void emptyCartNeedsOnlyAnExistenceCheck() {
+        assertEquals(0, cartService.getCartItemsInActiveCart(emptyCartId).size());
+        assertEquals(2, statistics.getPrepareStatementCount());
+
+        statistics.clear();
+        assertEquals(0.0, cartService.getCartTotalAmount(emptyCartId), 0.001);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void missingCartStillFails() {
+        assertThrows(RuntimeException.class, () -> cartService.getCartItemsInActiveCart(-1L));
+        assertThrows(RuntimeException.class, () -> cartService.getCartTotalAmount(-1L));
+    }
+}
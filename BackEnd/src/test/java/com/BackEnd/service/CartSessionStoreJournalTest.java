@@ -0,0 +1,235 @@
+package com.BackEnd.service;
+
+import com.BackEnd.model.Cart;
+import com.BackEnd.model.Product;
+import com.BackEnd.model.User;
+import com.BackEnd.repository.CartItemBatchRepository;
+import com.BackEnd.repository.CartItemRepository;
+import com.BackEnd.repository.CartRepository;
+import com.BackEnd.repository.ProductRepository;
+import com.BackEnd.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Che do write-behind (app.cart.store=memory): journal, gop thao tac, replay sau khi crash
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:cart_journal;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.auto_quote_keyword=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+// store tu mo transaction khi flush: du lieu test phai commit that
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CartSessionStoreJournalTest {
+
+    @TempDir
+    Path journalDir;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private ProductRepository productRepo;
+
+    @Autowired
+    private CartRepository cartRepo;
+
+    @Autowired
+    private CartItemRepository cartItemRepo;
+
+    private Long cartId;
+    private Long kinhId;
+    private Long gangId;
+
+    // ghi lai cac dong upsert; failing = true thi nem loi nhu khi mat ket noi DB
+    private static class RecordingBatchRepository extends CartItemBatchRepository {
+        final List<long[]> upserts = new ArrayList<>();
+        boolean failing;
+
+        RecordingBatchRepository(JdbcTemplate jdbcTemplate) {
+            super(jdbcTemplate);
+        }
+
+        @Override
+        public void upsertLines(List<long[]> lines) {
+            if (failing) {
+                throw new IllegalStateException("DB unavailable");
+            }
+            upserts.addAll(lines);
+            super.upsertLines(lines);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setUserName("journal-user");
+        user.setPassword("secret");
+        user.setFullName("Journal User");
+        user.setGmail("journal-user@example.com");
+        userRepo.save(user);
+        kinhId = productRepo.save(new Product("Kinh", "Oakley", "Kinh", 100.0, 10, "", 2024, "M", "Nhua", 0))
+                .getProductId();
+        gangId = productRepo.save(new Product("Gang", "Nike", "Gang", 50.0, 10, "", 2024, "M", "Da", 0))
+                .getProductId();
+        Cart cart = new Cart();
+        cart.setUser(user);
+        cartId = cartRepo.save(cart).getCartId();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM cart_item");
+        cartRepo.deleteAll();
+        productRepo.deleteAll();
+        userRepo.deleteAll();
+    }
+
+    private CartSessionStore newStore(CartItemBatchRepository batchRepo) {
+        return new CartSessionStore(cartRepo, cartItemRepo, batchRepo, productRepo,
+                new ProductCache(100, 600), transactionTemplate, "memory", 100, journalDir.toString());
+    }
+
+    private Integer quantityInDb(Long productId) {
+        List<Integer> rows = jdbcTemplate.queryForList(
+                "SELECT quantity FROM cart_item WHERE cart_id = ? AND product_id = ?", Integer.class,
+                cartId, productId);
+        assertTrue(rows.size() <= 1, "duplicate cart_item rows");
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private List<String> journalLines() throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (Stream<Path> files = Files.list(journalDir)) {
+            for (Path file : files.sorted().toList()) {
+                lines.addAll(Files.readAllLines(file, StandardCharsets.UTF_8));
+            }
+        }
+        return lines;
+    }
+
+    @Test
+    void replayAfterCrashAppliesUnflushedOpsExactlyOnce() throws IOException {
+        CartSessionStore crashed = newStore(new RecordingBatchRepository(jdbcTemplate));
+        crashed.replayJournal();
+        crashed.add(cartId, kinhId, 2);
+        crashed.add(cartId, gangId, 1);
+        crashed.remove(cartId, gangId);
+        crashed.add(cartId, kinhId, 1);
+        // process chet truoc lan flush dinh ky: DB chua co gi, journal con du
+        assertNull(quantityInDb(kinhId));
+        assertEquals(4, journalLines().size());
+
+        CartSessionStore restarted = newStore(new RecordingBatchRepository(jdbcTemplate));
+        restarted.replayJournal();
+
+        assertEquals(3, quantityInDb(kinhId));
+        assertNull(quantityInDb(gangId));
+        assertEquals(300.0, cartRepo.findTotalPriceByCartId(cartId).orElseThrow(), 0.001);
+        // segment da flush bi xoa: lan khoi dong sau khong ghi de thay doi moi hon trong DB
+        assertTrue(journalLines().isEmpty(), "flushed journal segments must be deleted");
+        restarted.shutdown();
+        jdbcTemplate.update("UPDATE cart_item SET quantity = 7 WHERE cart_id = ? AND product_id = ?", cartId, kinhId);
+
+        RecordingBatchRepository batch = new RecordingBatchRepository(jdbcTemplate);
+        CartSessionStore again = newStore(batch);
+        again.replayJournal();
+
+        assertTrue(batch.upserts.isEmpty(), "journal replayed twice");
+        assertEquals(7, quantityInDb(kinhId));
+        again.shutdown();
+    }
+
+    @Test
+    void opsOnOneItemCoalesceIntoOneUpsert() {
+        RecordingBatchRepository batch = new RecordingBatchRepository(jdbcTemplate);
+        CartSessionStore store = newStore(batch);
+        store.replayJournal();
+
+        Long itemId = store.add(cartId, kinhId, 1).getCartItemId();
+        store.add(cartId, kinhId, 2);
+        store.setQuantity(cartId, kinhId, 5);
+        store.adjust(cartId, itemId, 1);
+        store.adjust(cartId, itemId, -3);
+        store.flushAll();
+
+        assertEquals(1, batch.upserts.size());
+        assertEquals(List.of(cartId, kinhId, 3L),
+                List.of(batch.upserts.get(0)[0], batch.upserts.get(0)[1], batch.upserts.get(0)[2]));
+        assertEquals(3, quantityInDb(kinhId));
+        Map<String, Object> cart = jdbcTemplate.queryForMap(
+                "SELECT total_price, item_count FROM cart WHERE cart_id = ?", cartId);
+        assertEquals(300.0, ((Number) cart.get("total_price")).doubleValue(), 0.001);
+        assertEquals(3, ((Number) cart.get("item_count")).intValue());
+        store.shutdown();
+    }
+
+    @Test
+    void failedFlushKeepsJournalSegment() throws IOException {
+        RecordingBatchRepository batch = new RecordingBatchRepository(jdbcTemplate);
+        CartSessionStore store = newStore(batch);
+        store.replayJournal();
+        store.add(cartId, kinhId, 2);
+
+        batch.failing = true;
+        store.flushAll();
+
+        assertNull(quantityInDb(kinhId));
+        assertEquals(List.of("SET " + cartId + " " + kinhId + " 2"), journalLines());
+
+        // crash ngay sau lan flush loi: khoi dong lai van khoi phuc duoc tu journal
+        CartSessionStore restarted = newStore(new RecordingBatchRepository(jdbcTemplate));
+        restarted.replayJournal();
+        assertEquals(2, quantityInDb(kinhId));
+        restarted.shutdown();
+    }
+
+    @Test
+    void failedFlushIsRetriedOnNextFlush() {
+        RecordingBatchRepository batch = new RecordingBatchRepository(jdbcTemplate);
+        CartSessionStore store = newStore(batch);
+        store.replayJournal();
+        store.add(cartId, kinhId, 2);
+        store.add(cartId, gangId, 1);
+        store.flushAll();
+        store.remove(cartId, gangId);
+
+        batch.failing = true;
+        store.flushAll();
+        assertEquals(1, quantityInDb(gangId));
+
+        batch.failing = false;
+        store.flushAll();
+        assertEquals(2, quantityInDb(kinhId));
+        assertNull(quantityInDb(gangId));
+        store.shutdown();
+    }
+}
@@ -0,0 +1,125 @@
+package com.BackEnd.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderCodeGeneratorTest {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderCodeGeneratorTest.class);
+
+    private static final int THREADS = 8;
+    private static final int CODES_PER_THREAD = 50_000;
+
+    @Test
+    void codesAreUniqueAcrossThreads() throws Exception {
+        OrderCodeGenerator generator = new OrderCodeGenerator(3, System::currentTimeMillis);
+        Set<Long> codes = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < CODES_PER_THREAD; i++) {
+                    long code = generator.next();
+                    assertTrue(code > 0 && code <= OrderCodeGenerator.MAX_CODE, "out of PayOS range: " + code);
+                    codes.add(code);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(1, TimeUnit.MINUTES));
+        // get() nem lai AssertionError trong worker (neu co)
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        assertEquals(THREADS * CODES_PER_THREAD, codes.size());
+    }
+
+    @Test
+    void codesKeepIncreasingWhenClockMovesBack() {
+        AtomicLong now = new AtomicLong(OrderCodeGenerator.EPOCH + 10_000);
+        OrderCodeGenerator generator = new OrderCodeGenerator(0, now::get);
+        long last = generator.next();
+        now.addAndGet(-5_000);
+        // ca khi het sequence trong 1 ms
+        for (int i = 0; i < 1_000; i++) {
+            long code = generator.next();
+            assertTrue(code > last);
+            last = code;
+        }
+    }
+
+    @Test
+    void seededGeneratorNeverReissuesCodes() {
+        AtomicLong now = new AtomicLong(OrderCodeGenerator.EPOCH + 10_000);
+        OrderCodeGenerator before = new OrderCodeGenerator(5, now::get);
+        long last = 0;
+        for (int i = 0; i < 1_000; i++) {
+            last = before.next();
+        }
+        // restart voi dong ho lui, node khac
+        now.addAndGet(-5_000);
+        OrderCodeGenerator after = new OrderCodeGenerator(2, now::get);
+        after.seed(last);
+        assertTrue(after.next() > last);
+    }
+
+    @Test
+    void nodeIdIsEncodedAndValidated() {
+        long code = new OrderCodeGenerator(31, System::currentTimeMillis).next();
+        assertEquals(31, (code >>> OrderCodeGenerator.SEQUENCE_BITS) & OrderCodeGenerator.MAX_NODE);
+        assertThrows(IllegalArgumentException.class, () -> new OrderCodeGenerator(32, System::currentTimeMillis));
+    }
+
+    // ./gradlew test --tests '*OrderCodeGeneratorTest' -Dbenchmark=true
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void throughput() throws Exception {
+        OrderCodeGenerator generator = new OrderCodeGenerator(0, System::currentTimeMillis);
+        for (int i = 0; i < 1_000_000; i++) {
+            generator.next();
+        }
+        for (int threads : new int[] { 1, 4, THREADS }) {
+            LongAdder generated = new LongAdder();
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                pool.submit(() -> {
+                    long n = 0;
+                    while (System.nanoTime() < deadline) {
+                        generator.next();
+                        n++;
+                    }
+                    generated.add(n);
+                });
+            }
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(1, TimeUnit.MINUTES));
+            double seconds = (System.nanoTime() - start) / 1e9;
+            assertTrue(generated.sum() > 0, "no codes generated with " + threads + " threads");
+            log.info("OrderCodeGenerator: {} threads, {} codes/s", threads, Math.round(generated.sum() / seconds));
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.BackEnd.service;
+
+import com.BackEnd.dto.PaymentRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// PaymentService goi 1 server HTTP gia lap PayOS tren localhost (tre / ma loi cau hinh duoc)
+class PaymentServiceTest {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentServiceTest.class);
+    private static final String CHECKSUM_KEY = "checksum-key";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong latencyMillis = new AtomicLong();
+    private final AtomicReference<String> responseCode = new AtomicReference<>("00");
+    private final BlockingQueue<Received> received = new LinkedBlockingQueue<>();
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private PaymentService payments;
+
+    private record Received(String path, String clientId, String apiKey, JsonNode body) {
+    }
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/v2/payment-requests", this::handle);
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        if (payments != null) {
+            payments.shutdown();
+        }
+        server.stop(0);
+        // handler dang sleep (latency) bi interrupt
+        serverThreads.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        JsonNode body = objectMapper.readTree(exchange.getRequestBody());
+        received.add(new Received(exchange.getRequestURI().getPath(),
+                exchange.getRequestHeaders().getFirst("x-client-id"),
+                exchange.getRequestHeaders().getFirst("x-api-key"), body));
+        try {
+            Thread.sleep(latencyMillis.get());
+        } catch (InterruptedException e) {
+            exchange.close();
+            return;
+        }
+        String code = responseCode.get();
+        Map<String, Object> response = "00".equals(code)
+                ? Map.of("code", code, "desc", "success",
+                        "data", Map.of("qrCode", "QR-" + body.path("orderCode").asText()))
+                : Map.of("code", code, "desc", "Don thanh toan da ton tai");
+        byte[] bytes = objectMapper.writeValueAsBytes(response);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    private PaymentService payments(int concurrency, int queue, long timeoutMillis) {
+        payments = new PaymentService("client-id", "api-key", CHECKSUM_KEY, concurrency, queue, timeoutMillis,
+                "http://localhost:" + server.getAddress().getPort());
+        return payments;
+    }
+
+    private static String hmac(String data) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(CHECKSUM_KEY.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return HexFormat.of().formatHex(mac.doFinal(data.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void createsSignedPaymentLink() throws Exception {
+        String qr = payments(2, 2, 2_000).createOrderInPayOSAsync(new PaymentRequest(42L, 15000, "AutoParts Checkout"))
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals("QR-42", qr);
+        Received request = received.poll(1, TimeUnit.SECONDS);
+        assertNotNull(request);
+        assertEquals("/v2/payment-requests", request.path());
+        assertEquals("client-id", request.clientId());
+        assertEquals("api-key", request.apiKey());
+        assertEquals(42, request.body().path("orderCode").asLong());
+        assertEquals(15000, request.body().path("amount").asInt());
+        // chu ky PayOS: cac truong theo thu tu chu cai, HMAC-SHA256 bang checksum key
+        String signed = "amount=15000&cancelUrl=" + request.body().path("cancelUrl").asText()
+                + "&description=AutoParts Checkout&orderCode=42&returnUrl="
+                + request.body().path("returnUrl").asText();
+        assertEquals(hmac(signed), request.body().path("signature").asText());
+    }
+
+    @Test
+    void nonSuccessCodeFailsTheCall() {
+        responseCode.set("231");
+        CompletableFuture<String> call = payments(2, 2, 2_000)
+                .createOrderInPayOSAsync(new PaymentRequest(7L, 1000, "t"));
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> call.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RuntimeException.class, e.getCause());
+        assertTrue(e.getCause().getMessage().contains("Don thanh toan da ton tai"), e.getCause().getMessage());
+    }
+
+    @Test
+    void timedOutCallIsCancelledAtPayOS() throws Exception {
+        latencyMillis.set(10_000);
+        PaymentService service = payments(1, 1, 200);
+
+        CompletableFuture<String> call = service.createOrderInPayOSAsync(new PaymentRequest(9L, 1000, "t"));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> call.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        assertEquals("/v2/payment-requests", received.poll(1, TimeUnit.SECONDS).path());
+
+        // buoc bu tru cua OrderService: request co the da toi PayOS -> huy link
+        latencyMillis.set(0);
+        service.cancelPaymentLinkQuietly(9L, "Checkout failed");
+        Received cancel = received.poll(1, TimeUnit.SECONDS);
+        assertNotNull(cancel);
+        assertEquals("/v2/payment-requests/9/cancel", cancel.path());
+        assertEquals("Checkout failed", cancel.body().path("cancellationReason").asText());
+    }
+
+    @Test
+    void timedOutCallsReleasePoolThreads() throws Exception {
+        latencyMillis.set(10_000);
+        PaymentService service = payments(2, 1, 200);
+        // 2 dang chay + 1 trong hang doi, call thu 4 bi tu choi
+        List<CompletableFuture<String>> slow = List.of(
+                service.createOrderInPayOSAsync(new PaymentRequest(1L, 1000, "t")),
+                service.createOrderInPayOSAsync(new PaymentRequest(2L, 1000, "t")),
+                service.createOrderInPayOSAsync(new PaymentRequest(3L, 1000, "t")));
+        CompletableFuture<String> rejected = service.createOrderInPayOSAsync(new PaymentRequest(4L, 1000, "t"));
+        ExecutionException full = assertThrows(ExecutionException.class, rejected::get);
+        assertInstanceOf(RejectedExecutionException.class, full.getCause());
+        for (CompletableFuture<String> call : slow) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> call.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(TimeoutException.class, e.getCause());
+        }
+
+        // server van cham 10s nhung thread pool da duoc tra lai: call moi chay duoc ngay
+        latencyMillis.set(0);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        CompletableFuture<String> next;
+        do {
+            next = service.createOrderInPayOSAsync(new PaymentRequest(5L, 1000, "t"));
+        } while (next.isCompletedExceptionally() && System.nanoTime() < deadline);
+        assertEquals("QR-5", next.get(5, TimeUnit.SECONDS), "pool still busy with timed-out calls");
+    }
+
+    // ./gradlew test --tests '*PaymentServiceTest' -Dbenchmark=true
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void checkoutBurst() throws Exception {
+        int concurrency = 32;
+        int queue = 200;
+        long latency = 300;
+        int requests = 2_000;
+        latencyMillis.set(latency);
+        PaymentService service = payments(concurrency, queue, 10_000);
+        LongAdder ok = new LongAdder();
+        LongAdder rejected = new LongAdder();
+        LongAdder timedOut = new LongAdder();
+        // toi da `queue` call dang bay: du cho pool + hang doi (thread co the chua ranh ngay khi future xong)
+        Semaphore inFlight = new Semaphore(queue);
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            inFlight.acquire();
+            service.createOrderInPayOSAsync(new PaymentRequest((long) i + 1, 1000, "load"))
+                    .whenComplete((qr, error) -> {
+                        if (error == null) {
+                            ok.increment();
+                        } else if (error instanceof RejectedExecutionException) {
+                            rejected.increment();
+                        } else if (error instanceof TimeoutException) {
+                            timedOut.increment();
+                        }
+                        inFlight.release();
+                    });
+        }
+        inFlight.acquire(queue);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        log.info("PayOS burst: {} links in {} s ({} /s), rejected={}, timedOut={}", ok.sum(),
+                String.format("%.1f", seconds), Math.round(ok.sum() / seconds), rejected.sum(), timedOut.sum());
+        assertEquals(0, rejected.sum(), "in-flight calls fit pool + queue, nothing should be rejected");
+        assertEquals(0, timedOut.sum(), "server latency is far below timeout");
+        assertEquals(requests, ok.sum());
+        // 32 thread, 300 ms moi call -> toi da ~106 link/s
+        assertTrue(ok.sum() / seconds > concurrency * 1000.0 / latency * 0.8, "throughput below pool capacity");
+    }
+}